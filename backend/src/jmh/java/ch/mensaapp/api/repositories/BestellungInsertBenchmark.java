@@ -0,0 +1,153 @@
+package ch.mensaapp.api.repositories;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht das Speichern einer Bestellung mit vielen Positionen, wie Hibernate es mit
+ * IDENTITY (ein INSERT ... RETURNING pro Zeile) und mit einer gepoolten Sequenz plus
+ * JDBC-Batching (ein Sequenzaufruf pro 50 IDs, Positionen in einem Batch) an die Datenbank schickt.
+ *
+ * Benötigt eine PostgreSQL-Datenbank über dieselben Umgebungsvariablen wie die Anwendung
+ * (DB_URL, DB_USER, DB_PASS); es werden eigene Tabellen mit Präfix bench_ angelegt und wieder entfernt.
+ * Beispiel: mvn -Pjmh test-compile exec:exec -Djmh.args="BestellungInsert"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BestellungInsertBenchmark {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Param({"1", "10", "50"})
+    private int positionen;
+
+    private Connection connection;
+    private PreparedStatement identityBestellung;
+    private PreparedStatement identityPosition;
+    private PreparedStatement sequenzBestellung;
+    private PreparedStatement sequenzPosition;
+    private PreparedStatement naechsterBlock;
+
+    // Gepoolter Optimizer wie bei Hibernate: ein nextval liefert die Obergrenze eines Blocks von 50 IDs
+    private long naechsteBestellungId;
+    private long bestellungBlockEnde;
+    private long naechstePositionId;
+    private long positionBlockEnde;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String url = System.getenv("DB_URL");
+        if (url == null) {
+            throw new IllegalStateException("DB_URL ist nicht gesetzt; der Benchmark benötigt eine PostgreSQL-Datenbank");
+        }
+        // Wie in application.properties: gebündelte INSERTs als mehrzeilige INSERTs senden
+        String separator = url.contains("?") ? "&" : "?";
+        connection = DriverManager.getConnection(url + separator + "reWriteBatchedInserts=true",
+                System.getenv("DB_USER"), System.getenv("DB_PASS"));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_identity_positionen, bench_identity_bestellungen, "
+                    + "bench_sequenz_positionen, bench_sequenz_bestellungen");
+            statement.execute("DROP SEQUENCE IF EXISTS bench_bestellungen_seq, bench_positionen_seq");
+            statement.execute("CREATE TABLE bench_identity_bestellungen (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "user_id BIGINT NOT NULL, abhol_datum DATE NOT NULL, abhol_zeit TIME NOT NULL, gesamt_preis NUMERIC(10, 2) NOT NULL)");
+            statement.execute("CREATE TABLE bench_identity_positionen (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "bestellung_id BIGINT NOT NULL REFERENCES bench_identity_bestellungen, gericht_id BIGINT NOT NULL, "
+                    + "anzahl INT NOT NULL, einzel_preis NUMERIC(10, 2) NOT NULL)");
+            statement.execute("CREATE SEQUENCE bench_bestellungen_seq INCREMENT BY " + ALLOCATION_SIZE);
+            statement.execute("CREATE SEQUENCE bench_positionen_seq INCREMENT BY " + ALLOCATION_SIZE);
+            statement.execute("CREATE TABLE bench_sequenz_bestellungen (id BIGINT PRIMARY KEY, "
+                    + "user_id BIGINT NOT NULL, abhol_datum DATE NOT NULL, abhol_zeit TIME NOT NULL, gesamt_preis NUMERIC(10, 2) NOT NULL)");
+            statement.execute("CREATE TABLE bench_sequenz_positionen (id BIGINT PRIMARY KEY, "
+                    + "bestellung_id BIGINT NOT NULL REFERENCES bench_sequenz_bestellungen, gericht_id BIGINT NOT NULL, "
+                    + "anzahl INT NOT NULL, einzel_preis NUMERIC(10, 2) NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+
+        identityBestellung = connection.prepareStatement("INSERT INTO bench_identity_bestellungen "
+                + "(user_id, abhol_datum, abhol_zeit, gesamt_preis) VALUES (1, CURRENT_DATE, '12:00', 42.50) RETURNING id");
+        identityPosition = connection.prepareStatement("INSERT INTO bench_identity_positionen "
+                + "(bestellung_id, gericht_id, anzahl, einzel_preis) VALUES (?, ?, 1, 8.50) RETURNING id");
+        sequenzBestellung = connection.prepareStatement("INSERT INTO bench_sequenz_bestellungen "
+                + "(id, user_id, abhol_datum, abhol_zeit, gesamt_preis) VALUES (?, 1, CURRENT_DATE, '12:00', 42.50)");
+        sequenzPosition = connection.prepareStatement("INSERT INTO bench_sequenz_positionen "
+                + "(id, bestellung_id, gericht_id, anzahl, einzel_preis) VALUES (?, ?, ?, 1, 8.50)");
+        naechsterBlock = connection.prepareStatement("SELECT nextval(?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_identity_positionen, bench_identity_bestellungen, "
+                    + "bench_sequenz_positionen, bench_sequenz_bestellungen");
+            statement.execute("DROP SEQUENCE IF EXISTS bench_bestellungen_seq, bench_positionen_seq");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long identityEinzeln() throws SQLException {
+        long bestellungId;
+        try (ResultSet rs = identityBestellung.executeQuery()) {
+            rs.next();
+            bestellungId = rs.getLong(1);
+        }
+        for (int i = 0; i < positionen; i++) {
+            identityPosition.setLong(1, bestellungId);
+            identityPosition.setLong(2, i + 1);
+            try (ResultSet rs = identityPosition.executeQuery()) {
+                rs.next();
+            }
+        }
+        connection.commit();
+        return bestellungId;
+    }
+
+    @Benchmark
+    public long sequenzGebuendelt() throws SQLException {
+        if (naechsteBestellungId == bestellungBlockEnde) {
+            bestellungBlockEnde = holeBlock("bench_bestellungen_seq");
+            naechsteBestellungId = bestellungBlockEnde - ALLOCATION_SIZE;
+        }
+        long bestellungId = naechsteBestellungId++;
+        sequenzBestellung.setLong(1, bestellungId);
+        sequenzBestellung.executeUpdate();
+
+        for (int i = 0; i < positionen; i++) {
+            if (naechstePositionId == positionBlockEnde) {
+                positionBlockEnde = holeBlock("bench_positionen_seq");
+                naechstePositionId = positionBlockEnde - ALLOCATION_SIZE;
+            }
+            sequenzPosition.setLong(1, naechstePositionId++);
+            sequenzPosition.setLong(2, bestellungId);
+            sequenzPosition.setLong(3, i + 1);
+            sequenzPosition.addBatch();
+        }
+        sequenzPosition.executeBatch();
+        connection.commit();
+        return bestellungId;
+    }
+
+    private long holeBlock(String sequenz) throws SQLException {
+        naechsterBlock.setString(1, sequenz);
+        try (ResultSet rs = naechsterBlock.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ch.mensaapp.api.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentifizierte Requests pro Sekunde durch den AuthTokenFilter (Token parsen, Sperrliste,
+ * Security-Version, SecurityContext setzen) mit einer leeren FilterChain.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class AuthTokenFilterBenchmark {
+
+    private AuthTokenFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        JwtUtils jwtUtils = JwtUtilsBenchmark.newJwtUtils(JwtUtilsBenchmark.benchmarkSecret());
+        UserDetailsImpl userDetails = JwtUtilsBenchmark.newUserDetails();
+        authorizationHeader = "Bearer " + jwtUtils.generateJwtToken(userDetails);
+
+        // Security-Version vorbelegen, damit kein Repository benötigt wird
+        SecurityVersionRegistry securityVersionRegistry = new SecurityVersionRegistry();
+        ((Map<Long, Integer>) ReflectionTestUtils.getField(securityVersionRegistry, "versions"))
+                .put(userDetails.getId(), userDetails.getSecurityVersion());
+
+        TokenRevocationList tokenRevocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(tokenRevocationList, "bloomFilterBits", 1 << 20);
+        tokenRevocationList.init();
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "securityVersionRegistry", securityVersionRegistry);
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", tokenRevocationList);
+    }
+
+    @Benchmark
+    public Object filterAuthenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bestellungen/meine");
+        request.addHeader("Authorization", authorizationHeader);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
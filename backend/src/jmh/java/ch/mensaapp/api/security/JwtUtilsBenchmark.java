@@ -0,0 +1,81 @@
+package ch.mensaapp.api.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifizierte Tokens pro Sekunde auf einem Kern: vorher (Schlüssel und Parser pro
+ * Aufruf, zweimal geparst) gegenüber JwtUtils.parse mit vorbereitetem Parser,
+ * sowie ausgestellte Tokens pro Sekunde.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class JwtUtilsBenchmark {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "mensa-app-benchmark-secret-mit-mindestens-256-bit-laenge!".getBytes());
+
+    private JwtUtils jwtUtils;
+    private UserDetailsImpl userDetails;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtils = newJwtUtils(SECRET);
+        userDetails = newUserDetails();
+        token = jwtUtils.generateJwtToken(userDetails);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(userDetails);
+    }
+
+    @Benchmark
+    public String legacyValidateAndGetUserName() {
+        Key validateKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        Jwts.parserBuilder().setSigningKey(validateKey).build().parseClaimsJws(token);
+
+        Key subjectKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(subjectKey).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtUtils.parse(token).getClaims();
+    }
+
+    static UserDetailsImpl newUserDetails() {
+        return new UserDetailsImpl(1L, "max@example.com", null, "Max", "Muster",
+                false, null, true, 0, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    static JwtUtils newJwtUtils(String secret) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "retainedKeys", 2);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    static String benchmarkSecret() {
+        return SECRET;
+    }
+}
@@ -0,0 +1,55 @@
+package ch.mensaapp.api.security;
+
+import dev.samstevens.totp.code.CodeVerifier;
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import dev.samstevens.totp.code.DefaultCodeVerifier;
+import dev.samstevens.totp.secret.DefaultSecretGenerator;
+import dev.samstevens.totp.time.SystemTimeProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geprüfte MFA-Codes pro Sekunde bei wiederholten Fehlversuchen für dasselbe Secret:
+ * vorher (DefaultCodeVerifier, drei HMAC-SHA1 pro Versuch) gegenüber MfaUtils mit Code-Cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class MfaUtilsBenchmark {
+
+    private static final String WRONG_CODE = "000000";
+
+    private String secret;
+    private CodeVerifier legacyVerifier;
+    private MfaUtils mfaUtils;
+
+    @Setup
+    public void setup() {
+        secret = new DefaultSecretGenerator().generate();
+        legacyVerifier = new DefaultCodeVerifier(new DefaultCodeGenerator(), new SystemTimeProvider());
+        mfaUtils = newMfaUtils();
+    }
+
+    @Benchmark
+    public boolean legacyVerifyWrongCode() {
+        return legacyVerifier.isValidCode(secret, WRONG_CODE);
+    }
+
+    @Benchmark
+    public boolean verifyWrongCode() {
+        return mfaUtils.verifyCode(WRONG_CODE, secret);
+    }
+
+    static MfaUtils newMfaUtils() {
+        MfaUtils mfaUtils = new MfaUtils();
+        ReflectionTestUtils.setField(mfaUtils, "codeCacheMaximumSize", 10_000L);
+        mfaUtils.init();
+        return mfaUtils;
+    }
+}
@@ -0,0 +1,51 @@
+package ch.mensaapp.api.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dauer einer Passwortprüfung mit BCrypt in der konfigurierten Stärke
+ * (app.security.bcrypt-strength), direkt und über den BoundedPasswordEncoder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "Mensa-Benchmark-2024!";
+
+    @Param("10")
+    private int strength;
+
+    private BCryptPasswordEncoder bcrypt;
+    private BoundedPasswordEncoder boundedEncoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setup() {
+        bcrypt = new BCryptPasswordEncoder(strength);
+        boundedEncoder = new BoundedPasswordEncoder(bcrypt, 1, 64, 2);
+        encodedPassword = bcrypt.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        boundedEncoder.shutdown();
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return bcrypt.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public boolean boundedEncoderMatches() {
+        return boundedEncoder.matches(PASSWORD, encodedPassword);
+    }
+}
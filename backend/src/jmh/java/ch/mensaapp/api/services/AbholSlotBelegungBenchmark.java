@@ -0,0 +1,83 @@
+package ch.mensaapp.api.services;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Belastungstest der Slot-Reservierung: viele Threads reservieren und stornieren
+ * gleichzeitig, die Hälfte davon im selben, beliebten Zeitfenster (12:00). Nach jeder
+ * Iteration wird geprüft, dass kein Zeitfenster überbucht ist und keine Reservierung
+ * verloren ging; bei einer Verletzung bricht der Lauf mit einer Exception ab.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AbholSlotBelegungBenchmark {
+
+    private static final int SLOTS = 20;
+    private static final int BELIEBTER_SLOT = 8;
+
+    @Param("40")
+    private int kapazitaet;
+
+    private AbholSlotBelegung belegung;
+    private final AtomicLong reserviert = new AtomicLong();
+    private final AtomicLong freigegeben = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        int[] kapazitaeten = new int[SLOTS];
+        Arrays.fill(kapazitaeten, kapazitaet);
+        belegung = new AbholSlotBelegung(kapazitaeten, new int[SLOTS]);
+        reserviert.set(0);
+        freigegeben.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void pruefeBelegung() {
+        long summe = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int belegt = belegung.getBelegt(slot);
+            if (belegt > belegung.getKapazitaet(slot)) {
+                throw new IllegalStateException("Zeitfenster " + slot + " ist überbucht: " + belegt);
+            }
+            summe += belegt;
+        }
+        if (summe != reserviert.get() - freigegeben.get()) {
+            throw new IllegalStateException("Belegung " + summe + " stimmt nicht mit "
+                    + (reserviert.get() - freigegeben.get()) + " gehaltenen Reservierungen überein");
+        }
+    }
+
+    // Reservierungen, die ein Thread hält; nur diese darf er wieder stornieren
+    @State(Scope.Thread)
+    public static class Gehalten {
+        private final int[] proSlot = new int[SLOTS];
+    }
+
+    @Benchmark
+    public boolean reserviereUndStorniere(Gehalten gehalten) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int slot = random.nextBoolean() ? BELIEBTER_SLOT : random.nextInt(SLOTS);
+        if (belegung.reserviere(slot)) {
+            gehalten.proSlot[slot]++;
+            reserviert.incrementAndGet();
+            return true;
+        }
+        // Ausgebucht: eine eigene Reservierung stornieren, damit das Zeitfenster umkämpft bleibt
+        if (gehalten.proSlot[slot] > 0) {
+            gehalten.proSlot[slot]--;
+            belegung.gibFrei(slot);
+            freigegeben.incrementAndGet();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,166 @@
+package ch.mensaapp.api.services;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bestellungen pro Sekunde bei vielen gleichzeitigen Aufrufern und wenigen Datenbankverbindungen,
+ * wie zur Mittagsspitze: einmal mit einer Transaktion pro Bestellung (jeder Aufrufer wartet auf eine
+ * Verbindung), einmal über {@link GruppenCommit} mit einem Writer pro Verbindung.
+ *
+ * Benötigt eine PostgreSQL-Datenbank über dieselben Umgebungsvariablen wie die Anwendung
+ * (DB_URL, DB_USER, DB_PASS); es werden eigene Tabellen mit Präfix bench_ angelegt und wieder entfernt.
+ * Beispiel: mvn -Pjmh test-compile exec:exec -Djmh.args="BestellAnnahme"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class BestellAnnahmeBenchmark {
+
+    private static final int POSITIONEN = 3;
+
+    // Grösse des Verbindungspools, gleich für beide Varianten
+    @Param("4")
+    private int verbindungen;
+
+    @Param({"10", "20"})
+    private int maxGruppe;
+
+    @Param("5")
+    private int maxWartezeitMs;
+
+    private BlockingQueue<Connection> pool;
+    private GruppenCommit<Long, Long> gruppenCommit;
+    private final AtomicLong naechsteId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String url = System.getenv("DB_URL");
+        if (url == null) {
+            throw new IllegalStateException("DB_URL ist nicht gesetzt; der Benchmark benötigt eine PostgreSQL-Datenbank");
+        }
+        String separator = url.contains("?") ? "&" : "?";
+        pool = new ArrayBlockingQueue<>(verbindungen);
+        for (int i = 0; i < verbindungen; i++) {
+            Connection connection = DriverManager.getConnection(url + separator + "reWriteBatchedInserts=true",
+                    System.getenv("DB_USER"), System.getenv("DB_PASS"));
+            pool.add(connection);
+        }
+
+        Connection connection = pool.peek();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_annahme_positionen, bench_annahme_bestellungen");
+            statement.execute("CREATE TABLE bench_annahme_bestellungen (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "abhol_datum DATE NOT NULL, abhol_zeit TIME NOT NULL, gesamt_preis NUMERIC(10, 2) NOT NULL)");
+            statement.execute("CREATE TABLE bench_annahme_positionen (bestellung_id BIGINT NOT NULL "
+                    + "REFERENCES bench_annahme_bestellungen, gericht_id BIGINT NOT NULL, anzahl INT NOT NULL)");
+        }
+        for (Connection c : pool) {
+            c.setAutoCommit(false);
+        }
+
+        gruppenCommit = new GruppenCommit<>("bench-annahme", 1000, maxGruppe, Duration.ofMillis(maxWartezeitMs),
+                verbindungen, this::speichereGruppe);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (gruppenCommit != null) {
+            gruppenCommit.stoppe(Duration.ofSeconds(10));
+            System.out.printf("%n%d Gruppen, durchschnittlich %.1f Bestellungen pro Gruppe%n", gruppenCommit.getGruppen(),
+                    gruppenCommit.getGruppen() == 0 ? 0.0 : (double) gruppenCommit.getAuftraege() / gruppenCommit.getGruppen());
+        }
+        if (pool == null) {
+            return;
+        }
+        Connection connection = pool.peek();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_annahme_positionen, bench_annahme_bestellungen");
+        }
+        for (Connection c : pool) {
+            c.close();
+        }
+    }
+
+    @Benchmark
+    public long einzeln() throws Exception {
+        long id = naechsteId.incrementAndGet();
+        Connection connection = pool.take();
+        try {
+            schreibe(connection, List.of(id));
+            connection.commit();
+        } finally {
+            pool.put(connection);
+        }
+        return id;
+    }
+
+    @Benchmark
+    public long gruppiert() throws TimeoutException {
+        GruppenCommit.Auftrag<Long, Long> auftrag = gruppenCommit.anbieten(naechsteId.incrementAndGet());
+        if (auftrag == null) {
+            throw new IllegalStateException("Warteschlange voll");
+        }
+        return auftrag.warte(Duration.ofSeconds(30));
+    }
+
+    private void speichereGruppe(List<GruppenCommit.Auftrag<Long, Long>> gruppe) {
+        Connection connection = null;
+        try {
+            connection = pool.take();
+            schreibe(connection, gruppe.stream().map(GruppenCommit.Auftrag::getDaten).toList());
+            connection.commit();
+            gruppe.forEach(auftrag -> auftrag.erfuelle(auftrag.getDaten()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackFehler) {
+                e.addSuppressed(rollbackFehler);
+            }
+            throw new IllegalStateException(e);
+        } finally {
+            if (connection != null) {
+                pool.add(connection);
+            }
+        }
+    }
+
+    private void schreibe(Connection connection, List<Long> ids) throws SQLException {
+        try (PreparedStatement bestellung = connection.prepareStatement("INSERT INTO bench_annahme_bestellungen "
+                + "(id, user_id, abhol_datum, abhol_zeit, gesamt_preis) VALUES (?, 1, CURRENT_DATE, '12:00', 25.50)");
+             PreparedStatement position = connection.prepareStatement("INSERT INTO bench_annahme_positionen "
+                     + "(bestellung_id, gericht_id, anzahl) VALUES (?, ?, 1)")) {
+            for (Long id : ids) {
+                bestellung.setLong(1, id);
+                bestellung.addBatch();
+                for (int i = 1; i <= POSITIONEN; i++) {
+                    position.setLong(1, id);
+                    position.setLong(2, i);
+                    position.addBatch();
+                }
+            }
+            bestellung.executeBatch();
+            position.executeBatch();
+        }
+    }
+}
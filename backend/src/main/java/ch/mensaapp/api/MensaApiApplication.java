@@ -9,8 +9,10 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableScheduling
 public class MensaApiApplication {
     static {
+        // Ohne .env (z.B. in Tests oder mit echten Umgebungsvariablen) gelten die übrigen Property-Quellen
         Dotenv dotenv = Dotenv
                 .configure()
+                .ignoreIfMissing()
                 .load();
         dotenv.entries().forEach(entry -> System.setProperty(entry.getKey(), entry.getValue()));
     }
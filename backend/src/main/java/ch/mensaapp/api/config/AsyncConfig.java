@@ -0,0 +1,78 @@
+package ch.mensaapp.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig implements WebMvcConfigurer {
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+    public static final String WEB_ASYNC_EXECUTOR = "webAsyncExecutor";
+    public static final String SSE_EXECUTOR = "sseExecutor";
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    @Value("${app.mail.executor.threads:2}")
+    private int mailThreads;
+
+    @Value("${app.mail.executor.queue-capacity:500}")
+    private int mailQueueCapacity;
+
+    @Value("${app.web.async.threads:8}")
+    private int webAsyncThreads;
+
+    @Value("${app.web.async.queue-capacity:50}")
+    private int webAsyncQueueCapacity;
+
+    @Value("${app.sse.dispatcher-threads:4}")
+    private int sseThreads;
+
+    // Mails werden im Hintergrund versendet; ist die Warteschlange voll, wird die Mail verworfen statt den Request zu blockieren
+    @Bean(name = MAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor mailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mailThreads);
+        executor.setMaxPoolSize(mailThreads);
+        executor.setQueueCapacity(mailQueueCapacity);
+        executor.setThreadNamePrefix("mail-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                logger.warn("Mail-Warteschlange ist voll, Benachrichtigung wird verworfen"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Begrenzter Pool für asynchron geschriebene Antworten (z.B. StreamingResponseBody beim Export)
+    @Bean(name = WEB_ASYNC_EXECUTOR)
+    public ThreadPoolTaskExecutor webAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(webAsyncThreads);
+        executor.setMaxPoolSize(webAsyncThreads);
+        executor.setQueueCapacity(webAsyncQueueCapacity);
+        executor.setThreadNamePrefix("web-async-");
+        return executor;
+    }
+
+    // Sendet Server-Sent Events; pro Verbindung ist höchstens eine Aufgabe eingereiht
+    @Bean(name = SSE_EXECUTOR)
+    public ThreadPoolTaskExecutor sseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sseThreads);
+        executor.setMaxPoolSize(sseThreads);
+        executor.setThreadNamePrefix("sse-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(webAsyncExecutor());
+    }
+}
@@ -1,17 +1,44 @@
 package ch.mensaapp.api.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String USER_DETAILS_CACHE = "userDetails";
+
+    @Value("${app.cache.user-details.maximum-size:10000}")
+    private long userDetailsMaximumSize;
+
+    @Value("${app.cache.user-details.ttl:5m}")
+    private Duration userDetailsTtl;
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("menuplan", "gerichte", "getraenke");
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new ConcurrentMapCache("menuplan"),
+                new ConcurrentMapCache("gerichte"),
+                new ConcurrentMapCache("getraenke"),
+                // Begrenzt und mit TTL, da pro Benutzer ein Eintrag entsteht; Statistiken für /actuator/metrics
+                new CaffeineCache(USER_DETAILS_CACHE, Caffeine.newBuilder()
+                        .maximumSize(userDetailsMaximumSize)
+                        .expireAfterWrite(userDetailsTtl)
+                        .recordStats()
+                        .build())
+        ));
+        return cacheManager;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package ch.mensaapp.api.config;
 
 import ch.mensaapp.api.models.*;
 import ch.mensaapp.api.repositories.*;
+import ch.mensaapp.api.services.ProduktionsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -38,6 +39,9 @@ public class DataLoader implements CommandLineRunner {
     @Autowired
     private ZahlungRepository zahlungRepository;
 
+    @Autowired
+    private ProduktionsService produktionsService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -525,6 +529,9 @@ public class DataLoader implements CommandLineRunner {
                 zahlungRepository.saveAll(zahlungen);
             }
 
+            // Testbestellungen umgehen den BestellungService; Produktionsmengen daher neu aufbauen
+            produktionsService.alleNeuBerechnen();
+
             System.out.println("Created sample orders: " + savedBestellungen.size());
             System.out.println("Created sample payments: " + zahlungen.size());
         } catch (Exception e) {
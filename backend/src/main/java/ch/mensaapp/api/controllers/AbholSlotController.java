@@ -0,0 +1,36 @@
+package ch.mensaapp.api.controllers;
+
+import ch.mensaapp.api.payload.request.AbholSlotKapazitaetRequest;
+import ch.mensaapp.api.payload.response.AbholSlotResponse;
+import ch.mensaapp.api.services.AbholSlotService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/abholslots")
+public class AbholSlotController {
+    @Autowired
+    private AbholSlotService abholSlotService;
+
+    @GetMapping("/{datum}")
+    public ResponseEntity<List<AbholSlotResponse>> getAbholSlots(
+            @PathVariable("datum") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate datum) {
+        return ResponseEntity.ok(abholSlotService.getAbholSlots(datum));
+    }
+
+    @PutMapping("/{datum}/kapazitaet")
+    @PreAuthorize("hasRole('MENSA_ADMIN')")
+    public ResponseEntity<AbholSlotResponse> setzeKapazitaet(
+            @PathVariable("datum") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate datum,
+            @Valid @RequestBody AbholSlotKapazitaetRequest request) {
+        return ResponseEntity.ok(abholSlotService.setzeKapazitaet(datum, request.getSlotBeginn(), request.getKapazitaet()));
+    }
+}
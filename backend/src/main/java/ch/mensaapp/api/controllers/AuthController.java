@@ -1,5 +1,6 @@
 package ch.mensaapp.api.controllers;
 
+import ch.mensaapp.api.exceptions.ServiceOverloadedException;
 import ch.mensaapp.api.models.ERole;
 import ch.mensaapp.api.models.Role;
 import ch.mensaapp.api.models.User;
@@ -7,22 +8,33 @@ import ch.mensaapp.api.payload.request.*;
 import ch.mensaapp.api.payload.response.*;
 import ch.mensaapp.api.repositories.RoleRepository;
 import ch.mensaapp.api.repositories.UserRepository;
+import ch.mensaapp.api.security.JwtParseResult;
 import ch.mensaapp.api.security.JwtUtils;
 import ch.mensaapp.api.security.MfaUtils;
+import ch.mensaapp.api.security.SecurityVersionRegistry;
+import ch.mensaapp.api.security.UserDetailsCache;
 import ch.mensaapp.api.security.UserDetailsImpl;
+import ch.mensaapp.api.security.TokenRevocationList;
+import ch.mensaapp.api.security.UserDetailsServiceImpl;
 import ch.mensaapp.api.services.BruteForceProtectionService;
+import ch.mensaapp.api.services.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -51,36 +63,49 @@ public class AuthController {
     @Autowired
     private BruteForceProtectionService bruteForceService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                              HttpServletRequest request) {
+        if (bruteForceService.isIpBlocked(request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new MessageResponse("Zu viele fehlgeschlagene Anmeldeversuche. Bitte versuchen Sie es später erneut."));
+        }
+
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getEmail(),
-                            loginRequest.getPassword()
-                    )
+            UsernamePasswordAuthenticationToken authenticationRequest = new UsernamePasswordAuthenticationToken(
+                    loginRequest.getEmail(),
+                    loginRequest.getPassword()
             );
+            // Die Client-IP wird vom AuthenticationFailureListener für den IP-Zähler verwendet
+            authenticationRequest.setDetails(authenticationDetailsSource.buildDetails(request));
+            Authentication authentication = authenticationManager.authenticate(authenticationRequest);
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
             UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
 
             if (userDetails.isMfaEnabled()) {
-                return ResponseEntity.ok(new MfaRequiredResponse(userDetails.getEmail()));
+                return ResponseEntity.ok(new MfaRequiredResponse(userDetails.getEmail(),
+                        jwtUtils.generateMfaChallengeToken(userDetails)));
             } else {
                 bruteForceService.resetFailedAttempts(userDetails.getUsername());
-                String jwt = jwtUtils.generateJwtToken(authentication);
-                List<String> roles = userDetails.getAuthorities().stream()
-                        .map(a -> a.getAuthority())
-                        .collect(Collectors.toList());
-
-                return ResponseEntity.ok(new JwtResponse(
-                        jwt,
-                        userDetails.getId(),
-                        userDetails.getUsername(),
-                        userDetails.getVorname(),
-                        userDetails.getNachname(),
-                        roles
-                ));
+                return ResponseEntity.ok(createJwtResponse(userDetails, request));
             }
         } catch (DisabledException e) {
             // ACCOUNT DISABLED
@@ -94,6 +119,9 @@ public class AuthController {
             // INVALID LOGIN
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new MessageResponse("Ungültige E-Mail oder Passwort"));
+        } catch (ServiceOverloadedException e) {
+            // PASSWORD HASHING POOL SATURATED -> 503 via GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             // ANY OTHER ERROR
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -102,47 +130,46 @@ public class AuthController {
     }
 
     @PostMapping("/mfa-verify")
-    public ResponseEntity<?> verifyMfaCode(@Valid @RequestBody MfaVerificationRequest verificationRequest) {
+    public ResponseEntity<?> verifyMfaCode(@Valid @RequestBody MfaVerificationRequest verificationRequest,
+                                           HttpServletRequest request) {
+        if (bruteForceService.isIpBlocked(request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new MessageResponse("Zu viele fehlgeschlagene Anmeldeversuche. Bitte versuchen Sie es später erneut."));
+        }
+
         try {
-            User user = userRepository.findByEmail(verificationRequest.getEmail())
+            // Das Passwort wurde bereits bei /signin geprüft; das Challenge-Token belegt dies
+            Claims challenge = jwtUtils.parseMfaChallengeToken(verificationRequest.getChallengeToken());
+            if (challenge == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new MessageResponse("MFA-Anfrage ist ungültig oder abgelaufen. Bitte melden Sie sich erneut an."));
+            }
+            String email = challenge.getSubject();
+
+            User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("Benutzer nicht gefunden"));
 
+            if (jwtUtils.getSecurityVersion(challenge) != user.getSecurityVersion()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new MessageResponse("MFA-Anfrage ist ungültig oder abgelaufen. Bitte melden Sie sich erneut an."));
+            }
+
             // Check if account is locked due to failed MFA attempts
-            if (!user.isAccountNonLocked()) {
-                // Try to unlock if time has expired
-                if (!bruteForceService.unlockWhenTimeExpired(user)) {
-                    return ResponseEntity.status(HttpStatus.LOCKED) // 423 Locked
-                            .body(new MessageResponse("Account ist gesperrt. Bitte versuchen Sie es in 10 Minuten erneut."));
-                }
-                // If unlocked, reload user to get updated status
-                user = userRepository.findByEmail(verificationRequest.getEmail()).get();
+            if (bruteForceService.isLocked(user)) {
+                return ResponseEntity.status(HttpStatus.LOCKED) // 423 Locked
+                        .body(new MessageResponse("Account ist gesperrt. Bitte versuchen Sie es in 10 Minuten erneut."));
             }
 
             // Verify the MFA code
             if (mfaUtils.verifyCode(verificationRequest.getCode(), user.getMfaSecret())) {
                 // MFA verification successful - reset failed attempts and proceed with login
-                bruteForceService.resetFailedAttempts(verificationRequest.getEmail());
-
-                Authentication authentication = authenticationManager.authenticate(
-                        new UsernamePasswordAuthenticationToken(verificationRequest.getEmail(), verificationRequest.getPassword()));
+                bruteForceService.resetFailedAttempts(email);
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                String jwt = jwtUtils.generateJwtToken(authentication);
-                UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-
-                List<String> roles = userDetails.getAuthorities().stream()
-                        .map(item -> item.getAuthority())
-                        .collect(Collectors.toList());
-
-                return ResponseEntity.ok(new JwtResponse(jwt,
-                        userDetails.getId(),
-                        userDetails.getUsername(),
-                        userDetails.getVorname(),
-                        userDetails.getNachname(),
-                        roles));
+                UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(email);
+                return ResponseEntity.ok(createJwtResponse(userDetails, request));
             } else {
                 // MFA verification failed - register failed attempt
-                bruteForceService.registerFailedAttempt(verificationRequest.getEmail());
+                bruteForceService.registerFailedAttempt(email, request.getRemoteAddr());
                 return ResponseEntity.badRequest().body(new MessageResponse("Ungültiger MFA-Code"));
             }
         } catch (Exception e) {
@@ -150,6 +177,44 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody TokenRefreshRequest refreshRequest,
+                                          HttpServletRequest request) {
+        // Das Refresh-Token wird dabei entwertet und durch ein neues ersetzt
+        Optional<User> user = refreshTokenService.consumeRefreshToken(refreshRequest.getRefreshToken());
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new MessageResponse("Sitzung ist abgelaufen. Bitte melden Sie sich erneut an."));
+        }
+
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(user.get().getEmail());
+        if (!userDetails.isAccountNonLocked()) {
+            return ResponseEntity.status(HttpStatus.LOCKED)
+                    .body(new MessageResponse("Account ist gesperrt. Bitte versuchen Sie es später erneut."));
+        }
+
+        return ResponseEntity.ok(createJwtResponse(userDetails, request));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logoutUser(@RequestBody(required = false) TokenRefreshRequest logoutRequest,
+                                        HttpServletRequest request) {
+        // Das Access-Token wird bis zu seinem Ablauf gesperrt, das Refresh-Token gelöscht
+        String headerAuth = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
+            JwtParseResult parseResult = jwtUtils.parse(headerAuth.substring(7));
+            if (parseResult.isValid()) {
+                tokenRevocationList.revoke(parseResult.getClaims().getId(), parseResult.getClaims().getExpiration());
+            }
+        }
+
+        if (logoutRequest != null) {
+            refreshTokenService.revokeRefreshToken(logoutRequest.getRefreshToken());
+        }
+
+        return ResponseEntity.ok(new MessageResponse("Erfolgreich abgemeldet"));
+    }
+
     @PostMapping("/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByEmail(signUpRequest.getEmail())) {
@@ -187,6 +252,7 @@ public class AuthController {
 
             user.setMfaSecret(secret);
             userRepository.save(user);
+            userDetailsCache.evict(user.getEmail());
 
             return ResponseEntity.ok(new MfaSetupResponse(qrCodeImageUri, secret));
         } catch (Exception e) {
@@ -201,14 +267,9 @@ public class AuthController {
                     .orElseThrow(() -> new RuntimeException("Benutzer nicht gefunden"));
 
             // Check if account is locked due to failed MFA attempts
-            if (!user.isAccountNonLocked()) {
-                // Try to unlock if time has expired
-                if (!bruteForceService.unlockWhenTimeExpired(user)) {
-                    return ResponseEntity.status(HttpStatus.LOCKED) // 423 Locked
-                            .body(new MessageResponse("Account ist gesperrt. Bitte versuchen Sie es in 10 Minuten erneut."));
-                }
-                // If unlocked, reload user to get updated status
-                user = userRepository.findByEmail(enableRequest.getEmail()).get();
+            if (bruteForceService.isLocked(user)) {
+                return ResponseEntity.status(HttpStatus.LOCKED) // 423 Locked
+                        .body(new MessageResponse("Account ist gesperrt. Bitte versuchen Sie es in 10 Minuten erneut."));
             }
 
             if (mfaUtils.verifyCode(enableRequest.getCode(), user.getMfaSecret())) {
@@ -216,7 +277,10 @@ public class AuthController {
                 bruteForceService.resetFailedAttempts(enableRequest.getEmail());
 
                 user.setMfaEnabled(true);
+                // Bestehende Tokens wurden ohne zweiten Faktor ausgestellt
+                securityVersionRegistry.bump(user);
                 userRepository.save(user);
+                userDetailsCache.evict(user.getEmail());
                 return ResponseEntity.ok(new MessageResponse("MFA erfolgreich aktiviert"));
             } else {
                 // MFA verification failed - register failed attempt
@@ -235,14 +299,9 @@ public class AuthController {
                     .orElseThrow(() -> new RuntimeException("Benutzer nicht gefunden"));
 
             // Check if account is locked due to failed MFA attempts
-            if (!user.isAccountNonLocked()) {
-                // Try to unlock if time has expired
-                if (!bruteForceService.unlockWhenTimeExpired(user)) {
-                    return ResponseEntity.status(HttpStatus.LOCKED) // 423 Locked
-                            .body(new MessageResponse("Account ist gesperrt. Bitte versuchen Sie es in 10 Minuten erneut."));
-                }
-                // If unlocked, reload user to get updated status
-                user = userRepository.findByEmail(disableRequest.getEmail()).get();
+            if (bruteForceService.isLocked(user)) {
+                return ResponseEntity.status(HttpStatus.LOCKED) // 423 Locked
+                        .body(new MessageResponse("Account ist gesperrt. Bitte versuchen Sie es in 10 Minuten erneut."));
             }
 
             if (mfaUtils.verifyCode(disableRequest.getCode(), user.getMfaSecret())) {
@@ -251,7 +310,9 @@ public class AuthController {
 
                 user.setMfaEnabled(false);
                 user.setMfaSecret(null);
+                securityVersionRegistry.bump(user);
                 userRepository.save(user);
+                userDetailsCache.evict(user.getEmail());
                 return ResponseEntity.ok(new MessageResponse("MFA erfolgreich deaktiviert"));
             } else {
                 // MFA verification failed - register failed attempt
@@ -262,4 +323,23 @@ public class AuthController {
             return ResponseEntity.badRequest().body(new MessageResponse("Fehler beim Deaktivieren der MFA: " + e.getMessage()));
         }
     }
+
+    private JwtResponse createJwtResponse(UserDetailsImpl userDetails, HttpServletRequest request) {
+        String jwt = jwtUtils.generateJwtToken(userDetails);
+        String refreshToken = refreshTokenService.createRefreshToken(userDetails.getId(),
+                request.getHeader(HttpHeaders.USER_AGENT));
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(a -> a.getAuthority())
+                .collect(Collectors.toList());
+
+        return new JwtResponse(
+                jwt,
+                userDetails.getId(),
+                userDetails.getUsername(),
+                userDetails.getVorname(),
+                userDetails.getNachname(),
+                roles,
+                refreshToken
+        );
+    }
 }
@@ -2,20 +2,35 @@ package ch.mensaapp.api.controllers;
 
 import ch.mensaapp.api.models.Bestellung;
 import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.payload.request.BestellStatusBulkRequest;
+import ch.mensaapp.api.payload.request.BestellungFilterRequest;
 import ch.mensaapp.api.payload.request.BestellungRequest;
+import ch.mensaapp.api.payload.response.BestellStatusBulkResponse;
 import ch.mensaapp.api.payload.response.BestellungResponse;
+import ch.mensaapp.api.payload.response.BestellungSeiteResponse;
 import ch.mensaapp.api.payload.response.BestellungValidationResponse;
 import ch.mensaapp.api.payload.response.MessageResponse;
+import ch.mensaapp.api.payload.response.ProduktionsMengeResponse;
 import ch.mensaapp.api.security.UserDetailsImpl;
+import ch.mensaapp.api.services.BestellAnnahmeService;
+import ch.mensaapp.api.services.BestellungEventHub;
+import ch.mensaapp.api.services.BestellungExportService;
 import ch.mensaapp.api.services.BestellungService;
+import ch.mensaapp.api.services.IdempotencyService;
+import ch.mensaapp.api.services.ProduktionsService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -26,6 +41,21 @@ public class BestellungController {
     @Autowired
     private BestellungService bestellungService;
 
+    @Autowired
+    private BestellAnnahmeService bestellAnnahmeService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ProduktionsService produktionsService;
+
+    @Autowired
+    private BestellungExportService bestellungExportService;
+
+    @Autowired
+    private BestellungEventHub bestellungEventHub;
+
     @GetMapping("/meine")
     public ResponseEntity<List<BestellungResponse>> getMyBestellungen(@AuthenticationPrincipal UserDetailsImpl userDetails) {
         return ResponseEntity.ok(bestellungService.getBestellungenByUser(userDetails.getId()));
@@ -46,6 +76,7 @@ public class BestellungController {
 
     @PostMapping
     public ResponseEntity<BestellungResponse> createBestellung(@RequestBody BestellungRequest bestellungRequest, 
+                                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                                          @AuthenticationPrincipal UserDetailsImpl userDetails) {
         // Debug logging to understand what frontend is sending
         System.out.println("=== Bestellung Request Debug ===");
@@ -62,20 +93,40 @@ public class BestellungController {
         }
         System.out.println("=== End Debug ===");
 
-        return ResponseEntity.ok(bestellungService.erstelleBestellung(bestellungRequest, userDetails.getId()));
+        // Wiederholte Anfragen mit demselben Idempotency-Key erhalten die ursprüngliche Bestellung
+        return idempotencyService.execute(idempotencyKey, userDetails.getId(), "bestellung", bestellungRequest,
+                () -> ResponseEntity.ok(bestellAnnahmeService.erstelleBestellung(bestellungRequest, userDetails.getId())));
     }
 
     @PostMapping("/validate")
     public ResponseEntity<BestellungValidationResponse> createBestellungWithValidation(@RequestBody BestellungRequest bestellungRequest, 
+                                                                                  @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                                                                   @AuthenticationPrincipal UserDetailsImpl userDetails) {
-        BestellungValidationResponse response = bestellungService.erstelleBestellungMitValidation(bestellungRequest, userDetails.getId());
-        
-        // Return appropriate HTTP status based on validation result
-        if (response.isErfolgreich()) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.badRequest().body(response);
-        }
+        return idempotencyService.execute(idempotencyKey, userDetails.getId(), "bestellung-validate", bestellungRequest, () -> {
+            BestellungValidationResponse response = bestellungService.erstelleBestellungMitValidation(bestellungRequest, userDetails.getId());
+
+            // Return appropriate HTTP status based on validation result
+            if (response.isErfolgreich()) {
+                return ResponseEntity.ok(response);
+            } else {
+                return ResponseEntity.badRequest().body(response);
+            }
+        });
+    }
+
+    // Live-Updates der eigenen Bestellungen; Last-Event-ID holt verpasste Ereignisse nach
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyBestellungen(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                           @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return bestellungEventHub.abonniere(userDetails.getId(), null, lastEventId);
+    }
+
+    @GetMapping(value = "/stream/alle", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('STAFF') or hasRole('MENSA_ADMIN')")
+    public SseEmitter streamAlleBestellungen(
+            @RequestParam(value = "datum", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate datum,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return bestellungEventHub.abonniere(null, datum, lastEventId);
     }
 
     @PutMapping("/{id}/stornieren")
@@ -85,8 +136,29 @@ public class BestellungController {
 
     @GetMapping("/alle")
     @PreAuthorize("hasRole('STAFF') or hasRole('MENSA_ADMIN')")
-    public ResponseEntity<List<BestellungResponse>> getAlleBestellungen() {
-        return ResponseEntity.ok(bestellungService.getAlleBestellungen());
+    public ResponseEntity<BestellungSeiteResponse> getAlleBestellungen(
+            @ModelAttribute BestellungFilterRequest filter,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "groesse", defaultValue = "50") int groesse) {
+        return ResponseEntity.ok(bestellungService.getBestellungenSeite(filter, cursor, groesse));
+    }
+
+    // Buchhaltungsexport; wird während des Lesens gestreamt statt vollständig im Speicher aufgebaut
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('STAFF') or hasRole('MENSA_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBestellungen(
+            @RequestParam(value = "von", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate von,
+            @RequestParam(value = "bis", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bis,
+            @RequestParam(value = "format", defaultValue = "CSV") BestellungExportService.Format format) {
+        boolean csv = format == BestellungExportService.Format.CSV;
+        String dateiname = "bestellungen" + (von != null ? "_" + von : "") + (bis != null ? "_" + bis : "")
+                + (csv ? ".csv" : ".ndjson");
+
+        StreamingResponseBody body = ausgabe -> bestellungExportService.exportiere(von, bis, format, ausgabe);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dateiname + "\"")
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/datum/{datum}")
@@ -96,6 +168,29 @@ public class BestellungController {
         return ResponseEntity.ok(bestellungService.getBestellungenByAbholDatum(datum));
     }
 
+    // Produktionsmengen pro Gericht statt aller Bestellungen des Tages
+    @GetMapping("/produktion/{datum}")
+    @PreAuthorize("hasRole('STAFF') or hasRole('MENSA_ADMIN')")
+    public ResponseEntity<List<ProduktionsMengeResponse>> getProduktionsMengen(
+            @PathVariable("datum") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate datum) {
+        return ResponseEntity.ok(produktionsService.getProduktionsMengen(datum));
+    }
+
+    @PostMapping("/produktion/{datum}/neu-berechnen")
+    @PreAuthorize("hasRole('MENSA_ADMIN')")
+    public ResponseEntity<List<ProduktionsMengeResponse>> berechneProduktionsMengenNeu(
+            @PathVariable("datum") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate datum) {
+        produktionsService.neuBerechnen(datum);
+        return ResponseEntity.ok(produktionsService.getProduktionsMengen(datum));
+    }
+
+    // Statuswechsel für mehrere Bestellungen, z.B. alle Bestellungen eines Abholzeitfensters auf BEREIT
+    @PutMapping("/status")
+    @PreAuthorize("hasRole('STAFF') or hasRole('MENSA_ADMIN')")
+    public ResponseEntity<BestellStatusBulkResponse> updateBestellungStatus(@Valid @RequestBody BestellStatusBulkRequest request) {
+        return ResponseEntity.ok(bestellungService.updateBestellungStatus(request));
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('STAFF') or hasRole('MENSA_ADMIN')")
     public ResponseEntity<BestellungResponse> updateBestellungStatus(@PathVariable("id") Long id, @RequestParam BestellStatus status) {
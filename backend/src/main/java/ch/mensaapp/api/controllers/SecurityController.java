@@ -0,0 +1,37 @@
+package ch.mensaapp.api.controllers;
+
+import ch.mensaapp.api.exceptions.BadRequestException;
+import ch.mensaapp.api.payload.request.JwtKeyRotationRequest;
+import ch.mensaapp.api.payload.response.MessageResponse;
+import ch.mensaapp.api.security.JwtUtils;
+import io.jsonwebtoken.JwtException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/security")
+public class SecurityController {
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    /**
+     * Rotiert den JWT-Signaturschlüssel dieser Instanz ohne Neustart. Damit die Rotation einen
+     * Neustart übersteht, muss das neue Secret zusätzlich als app.jwt.secret und das bisherige
+     * unter app.jwt.previous-secrets hinterlegt werden.
+     */
+    @PostMapping("/jwt-key")
+    @PreAuthorize("hasRole('MENSA_ADMIN')")
+    public ResponseEntity<MessageResponse> rotateJwtKey(@Valid @RequestBody JwtKeyRotationRequest request) {
+        String keyId;
+        try {
+            keyId = jwtUtils.rotateKey(request.getSecret().trim());
+        } catch (JwtException e) {
+            throw new BadRequestException("Ungültiges Secret: erwartet wird ein Base64-kodierter Schlüssel mit mindestens 256 Bit");
+        }
+        return ResponseEntity.ok(new MessageResponse("JWT Signaturschlüssel rotiert, neue Key-ID: " + keyId));
+    }
+}
@@ -4,6 +4,7 @@ import ch.mensaapp.api.payload.request.ZahlungRequest;
 import ch.mensaapp.api.payload.response.MessageResponse;
 import ch.mensaapp.api.payload.response.ZahlungResponse;
 import ch.mensaapp.api.security.UserDetailsImpl;
+import ch.mensaapp.api.services.IdempotencyService;
 import ch.mensaapp.api.services.ZahlungService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,12 +19,17 @@ public class ZahlungController {
     @Autowired
     private ZahlungService zahlungService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/{bestellungId}")
     public ResponseEntity<?> processZahlung(@PathVariable("bestellungId") Long bestellungId, 
                                            @Valid @RequestBody ZahlungRequest zahlungRequest,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
                                            @AuthenticationPrincipal UserDetailsImpl userDetails) {
-        ZahlungResponse zahlungResponse = zahlungService.verarbeiteZahlung(bestellungId, zahlungRequest, userDetails.getId());
-        return ResponseEntity.ok(zahlungResponse);
+        // Wiederholte Anfragen mit demselben Idempotency-Key lösen keine zweite Zahlung aus
+        return idempotencyService.execute(idempotencyKey, userDetails.getId(), "zahlung:" + bestellungId, zahlungRequest,
+                () -> ResponseEntity.ok(zahlungService.verarbeiteZahlung(bestellungId, zahlungRequest, userDetails.getId())));
     }
 
     @GetMapping("/{bestellungId}")
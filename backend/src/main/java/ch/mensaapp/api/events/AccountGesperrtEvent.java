@@ -0,0 +1,22 @@
+package ch.mensaapp.api.events;
+
+/**
+ * Wird veröffentlicht, nachdem ein Account wegen zu vieler Fehlversuche gesperrt wurde.
+ */
+public class AccountGesperrtEvent {
+    private final String email;
+    private final int fehlversuche;
+
+    public AccountGesperrtEvent(String email, int fehlversuche) {
+        this.email = email;
+        this.fehlversuche = fehlversuche;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getFehlversuche() {
+        return fehlversuche;
+    }
+}
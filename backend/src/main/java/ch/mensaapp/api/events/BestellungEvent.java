@@ -0,0 +1,30 @@
+package ch.mensaapp.api.events;
+
+import ch.mensaapp.api.payload.response.BestellungResponse;
+
+/**
+ * Wird veröffentlicht, wenn eine Bestellung erstellt, ihr Status geändert oder sie bezahlt
+ * wurde. Enthält den Stand der Bestellung nach der Änderung.
+ */
+public class BestellungEvent {
+
+    public enum Typ {
+        ERSTELLT, STATUS_GEAENDERT, BEZAHLT
+    }
+
+    private final Typ typ;
+    private final BestellungResponse bestellung;
+
+    public BestellungEvent(Typ typ, BestellungResponse bestellung) {
+        this.typ = typ;
+        this.bestellung = bestellung;
+    }
+
+    public Typ getTyp() {
+        return typ;
+    }
+
+    public BestellungResponse getBestellung() {
+        return bestellung;
+    }
+}
@@ -0,0 +1,12 @@
+package ch.mensaapp.api.exceptions;
+
+/**
+ * Ungültige Eingabe des Clients, z.B. ein fehlerhafter Parameter. Wird vom
+ * GlobalExceptionHandler als 400 beantwortet.
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package ch.mensaapp.api.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Ungültige Wiederverwendung eines Idempotency-Keys, z.B. mit anderem Request-Body
+ * (422) oder während die ursprüngliche Anfrage noch verarbeitet wird (409).
+ */
+public class IdempotencyException extends RuntimeException {
+    private final HttpStatus status;
+
+    public IdempotencyException(String message, HttpStatus status) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
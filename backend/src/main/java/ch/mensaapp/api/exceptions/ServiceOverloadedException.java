@@ -0,0 +1,18 @@
+package ch.mensaapp.api.exceptions;
+
+/**
+ * Signalisiert, dass eine begrenzte Ressource ausgelastet ist. Wird vom
+ * GlobalExceptionHandler als 503 mit Retry-After beantwortet.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,36 @@
+package ch.mensaapp.api.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Abweichende Kapazität eines einzelnen Abholzeitfensters. Zeitfenster ohne Eintrag
+ * verwenden die Standardkapazität (app.abholung.kapazitaet-pro-slot).
+ */
+@Entity
+@Table(name = "abholslot_kapazitaeten", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"datum", "slot_beginn"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AbholSlotKapazitaet {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "abholslot_kapazitaeten_seq")
+    @SequenceGenerator(name = "abholslot_kapazitaeten_seq", sequenceName = "abholslot_kapazitaeten_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate datum;
+
+    @Column(name = "slot_beginn", nullable = false)
+    private LocalTime slotBeginn;
+
+    @Column(nullable = false)
+    private Integer kapazitaet;
+}
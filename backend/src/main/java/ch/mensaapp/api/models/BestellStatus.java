@@ -1,9 +1,36 @@
 package ch.mensaapp.api.models;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum BestellStatus {
     NEU,
     IN_ZUBEREITUNG,
     BEREIT,
     ABGEHOLT,
-    STORNIERT
+    STORNIERT;
+
+    // Erlaubte Übergänge im Küchenablauf; ABGEHOLT und STORNIERT sind Endzustände
+    public boolean kannWechselnZu(BestellStatus ziel) {
+        switch (this) {
+            case NEU:
+                return ziel == IN_ZUBEREITUNG || ziel == STORNIERT;
+            case IN_ZUBEREITUNG:
+                return ziel == BEREIT || ziel == STORNIERT;
+            case BEREIT:
+                return ziel == ABGEHOLT;
+            default:
+                return false;
+        }
+    }
+
+    public static Set<BestellStatus> vorgaengerVon(BestellStatus ziel) {
+        Set<BestellStatus> vorgaenger = EnumSet.noneOf(BestellStatus.class);
+        for (BestellStatus status : values()) {
+            if (status.kannWechselnZu(ziel)) {
+                vorgaenger.add(status);
+            }
+        }
+        return vorgaenger;
+    }
 }
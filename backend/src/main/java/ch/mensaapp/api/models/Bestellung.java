@@ -16,8 +16,11 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Bestellung {
+    // IDs aus einer Sequenz in Blöcken zu 50: Hibernate kennt die ID vor dem INSERT und kann
+    // Bestellung und Positionen gebündelt schreiben (mit IDENTITY ist JDBC-Batching abgeschaltet)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bestellungen_seq")
+    @SequenceGenerator(name = "bestellungen_seq", sequenceName = "bestellungen_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -15,7 +15,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class Gericht {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "gerichte_seq")
+    @SequenceGenerator(name = "gerichte_seq", sequenceName = "gerichte_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -14,7 +14,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class Getraenk {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "getraenke_seq")
+    @SequenceGenerator(name = "getraenke_seq", sequenceName = "getraenke_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -17,7 +17,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class Menuplan {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menuplan_seq")
+    @SequenceGenerator(name = "menuplan_seq", sequenceName = "menuplan_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
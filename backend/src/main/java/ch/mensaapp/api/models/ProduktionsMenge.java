@@ -0,0 +1,41 @@
+package ch.mensaapp.api.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Bestellte Menge eines Gerichts pro Abholdatum und Bestellstatus. Wird bei jeder
+ * Bestellung, Stornierung und Statusänderung fortgeschrieben, damit die Küche die
+ * Produktionsmengen lesen kann, ohne alle Bestellungen des Tages zu laden.
+ */
+@Entity
+@Table(name = "produktions_mengen", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"abhol_datum", "gericht_id", "status"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProduktionsMenge {
+    // Bleibt IDENTITY: Zeilen entstehen nur über native Upserts, die die ID der Spaltenvorgabe überlassen
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "abhol_datum", nullable = false)
+    private LocalDate abholDatum;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gericht_id", nullable = false)
+    private Gericht gericht;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BestellStatus status;
+
+    @Column(nullable = false)
+    private Integer anzahl;
+}
@@ -0,0 +1,37 @@
+package ch.mensaapp.api.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "refresh_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_seq")
+    @SequenceGenerator(name = "refresh_tokens_seq", sequenceName = "refresh_tokens_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // Gespeichert wird nur der SHA-256-Hash des Tokens
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // Gerät, für das das Token ausgestellt wurde (User-Agent)
+    @Column(name = "geraet", nullable = false)
+    private String geraet;
+
+    @Column(nullable = false)
+    private LocalDateTime erstelltAm;
+
+    @Column(nullable = false)
+    private LocalDateTime ablaufDatum;
+}
@@ -18,7 +18,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -47,6 +48,10 @@ public class User {
     @Column(name = "lock_time")
     private Date lockTime;
 
+    // Wird erhöht, wenn sich berechtigungsrelevante Daten ändern; ältere JWTs werden damit ungültig
+    @Column(name = "security_version", nullable = false, columnDefinition = "integer default 0")
+    private int securityVersion = 0;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -0,0 +1,17 @@
+package ch.mensaapp.api.payload.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalTime;
+
+@Data
+public class AbholSlotKapazitaetRequest {
+    @NotNull
+    private LocalTime slotBeginn;
+
+    @NotNull
+    @Min(value = 0, message = "Die Kapazität darf nicht negativ sein")
+    private Integer kapazitaet;
+}
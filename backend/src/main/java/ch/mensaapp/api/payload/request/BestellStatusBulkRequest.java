@@ -0,0 +1,28 @@
+package ch.mensaapp.api.payload.request;
+
+import ch.mensaapp.api.models.BestellStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Statuswechsel für mehrere Bestellungen: entweder explizite IDs oder ein Filter
+ * (Abholdatum, optional Abholzeitfenster und aktueller Status).
+ */
+@Data
+public class BestellStatusBulkRequest {
+    @NotNull
+    private BestellStatus zielStatus;
+
+    private List<Long> ids;
+
+    private LocalDate abholDatum;
+
+    // Wählt alle Bestellungen im Abholzeitfenster, in das diese Zeit fällt
+    private LocalTime abholZeit;
+
+    private BestellStatus status;
+}
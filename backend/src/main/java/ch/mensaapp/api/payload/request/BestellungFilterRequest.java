@@ -0,0 +1,22 @@
+package ch.mensaapp.api.payload.request;
+
+import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.models.ZahlungsStatus;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+// Optionale Filter der Bestellübersicht; nicht gesetzte Felder schränken nicht ein
+@Data
+public class BestellungFilterRequest {
+    private BestellStatus status;
+
+    private ZahlungsStatus zahlungsStatus;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate von;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate bis;
+}
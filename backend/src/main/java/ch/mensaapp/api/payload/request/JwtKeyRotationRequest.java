@@ -0,0 +1,11 @@
+package ch.mensaapp.api.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class JwtKeyRotationRequest {
+    // Base64-kodiert, mindestens 256 Bit
+    @NotBlank
+    private String secret;
+}
@@ -1,18 +1,14 @@
 package ch.mensaapp.api.payload.request;
 
-import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
 public class MfaVerificationRequest {
+    // Kurzlebiges Token aus der MfaRequiredResponse von /signin
     @NotBlank
-    @Email
-    private String email;
-
-    @NotBlank
-    private String password;
+    private String challengeToken;
 
     @NotBlank
     @Size(min = 6, max = 6)
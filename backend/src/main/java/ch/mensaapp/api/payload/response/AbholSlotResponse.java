@@ -0,0 +1,18 @@
+package ch.mensaapp.api.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AbholSlotResponse {
+    private LocalTime beginn;
+    private LocalTime ende;
+    private int kapazitaet;
+    private int belegt;
+    private int verfuegbar;
+}
@@ -0,0 +1,33 @@
+package ch.mensaapp.api.payload.response;
+
+import ch.mensaapp.api.models.BestellStatus;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BestellStatusBulkResponse {
+    private int aktualisiert;
+    private List<Ergebnis> ergebnisse;
+
+    public enum Ausgang {
+        AKTUALISIERT, UNVERAENDERT, UNGUELTIGER_UEBERGANG, NICHT_GEFUNDEN
+    }
+
+    @Data
+    public static class Ergebnis {
+        private Long id;
+        private Ausgang ausgang;
+        private BestellStatus status; // Status nach der Verarbeitung
+        private String meldung;
+
+        public static Ergebnis create(Long id, Ausgang ausgang, BestellStatus status, String meldung) {
+            Ergebnis ergebnis = new Ergebnis();
+            ergebnis.setId(id);
+            ergebnis.setAusgang(ausgang);
+            ergebnis.setStatus(status);
+            ergebnis.setMeldung(meldung);
+            return ergebnis;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ch.mensaapp.api.payload.response;
+
+import ch.mensaapp.api.models.Bestellung;
+import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.models.ZahlungsStatus;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Eine Bestellung im Buchhaltungsexport; ohne Positionen, damit pro Bestellung keine weiteren Abfragen nötig sind
+@Data
+public class BestellungExportZeile {
+    public static final String[] SPALTEN = {
+            "id", "bestellDatum", "abholDatum", "abholZeit", "userId", "userEmail", "userName",
+            "gesamtPreis", "status", "zahlungsStatus", "zahlungsReferenz"
+    };
+
+    private Long id;
+    private LocalDate bestellDatum;
+    private LocalDate abholDatum;
+    private LocalTime abholZeit;
+    private Long userId;
+    private String userEmail;
+    private String userName;
+    private BigDecimal gesamtPreis;
+    private BestellStatus status;
+    private ZahlungsStatus zahlungsStatus;
+    private String zahlungsReferenz;
+
+    public static BestellungExportZeile fromEntity(Bestellung bestellung) {
+        BestellungExportZeile zeile = new BestellungExportZeile();
+        zeile.setId(bestellung.getId());
+        zeile.setBestellDatum(bestellung.getBestellDatum());
+        zeile.setAbholDatum(bestellung.getAbholDatum());
+        zeile.setAbholZeit(bestellung.getAbholZeit());
+        zeile.setUserId(bestellung.getUser().getId());
+        zeile.setUserEmail(bestellung.getUser().getEmail());
+        zeile.setUserName(bestellung.getUser().getVorname() + " " + bestellung.getUser().getNachname());
+        zeile.setGesamtPreis(bestellung.getGesamtPreis());
+        zeile.setStatus(bestellung.getStatus());
+        zeile.setZahlungsStatus(bestellung.getZahlungsStatus());
+        zeile.setZahlungsReferenz(bestellung.getZahlungsReferenz());
+        return zeile;
+    }
+
+    // Werte in der Reihenfolge von SPALTEN
+    public Object[] werte() {
+        return new Object[]{
+                id, bestellDatum, abholDatum, abholZeit, userId, userEmail, userName,
+                gesamtPreis, status, zahlungsStatus, zahlungsReferenz
+        };
+    }
+}
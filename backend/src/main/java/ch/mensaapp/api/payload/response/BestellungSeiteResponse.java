@@ -0,0 +1,16 @@
+package ch.mensaapp.api.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestellungSeiteResponse {
+    private List<BestellungResponse> bestellungen;
+    // Cursor für die nächste Seite; null, wenn keine weiteren Bestellungen vorhanden sind
+    private String naechsterCursor;
+}
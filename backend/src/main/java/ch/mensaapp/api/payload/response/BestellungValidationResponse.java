@@ -9,6 +9,7 @@ import java.util.List;
 public class BestellungValidationResponse {
     private boolean erfolgreich;
     private String nachricht;
+    private List<String> fehler; // Alle Verstösse, nachricht enthält den ersten
     private BestellungResponse bestellung; // Only set if successful
     private List<UnavailableProduct> nichtverfuegbareProdukte;
     private LocalDate empfohlenesDatum;
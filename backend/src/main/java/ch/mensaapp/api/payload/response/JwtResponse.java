@@ -14,4 +14,5 @@ public class JwtResponse {
     private String vorname;
     private String nachname;
     private List<String> roles;
+    private String refreshToken;
 }
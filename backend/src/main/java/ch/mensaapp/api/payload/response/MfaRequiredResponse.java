@@ -7,5 +7,6 @@ import lombok.Data;
 @AllArgsConstructor
 public class MfaRequiredResponse {
     private String email;
+    private String challengeToken;
     private final boolean mfaRequired = true;
 }
@@ -0,0 +1,20 @@
+package ch.mensaapp.api.payload.response;
+
+import ch.mensaapp.api.models.BestellStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class ProduktionsMengeResponse {
+    private Long gerichtId;
+    private String gerichtName;
+    private Map<BestellStatus, Integer> mengenProStatus = new EnumMap<>(BestellStatus.class);
+    // Noch zuzubereiten: NEU und IN_ZUBEREITUNG
+    private int offen;
+    // Alle nicht stornierten Portionen
+    private int gesamt;
+}
@@ -0,0 +1,16 @@
+package ch.mensaapp.api.repositories;
+
+import ch.mensaapp.api.models.AbholSlotKapazitaet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AbholSlotKapazitaetRepository extends JpaRepository<AbholSlotKapazitaet, Long> {
+    List<AbholSlotKapazitaet> findByDatum(LocalDate datum);
+    Optional<AbholSlotKapazitaet> findByDatumAndSlotBeginn(LocalDate datum, LocalTime slotBeginn);
+}
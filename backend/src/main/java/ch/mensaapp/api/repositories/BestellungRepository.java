@@ -4,16 +4,48 @@ import ch.mensaapp.api.models.Bestellung;
 import ch.mensaapp.api.models.BestellStatus;
 import ch.mensaapp.api.models.User;
 import ch.mensaapp.api.models.ZahlungsStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BestellungRepository extends JpaRepository<Bestellung, Long> {
+public interface BestellungRepository extends JpaRepository<Bestellung, Long>, BestellungRepositoryCustom {
     List<Bestellung> findByUser(User user);
     List<Bestellung> findByUserAndStatus(User user, BestellStatus status);
     List<Bestellung> findByAbholDatum(LocalDate abholDatum);
     List<Bestellung> findByAbholDatumAndStatus(LocalDate abholDatum, BestellStatus status);
     List<Bestellung> findByZahlungsStatus(ZahlungsStatus zahlungsStatus);
+
+    // Lesezugriffe für BestellungResponse: Benutzer, Positionen und Gerichte werden in derselben Abfrage geladen
+    @EntityGraph(attributePaths = {"user", "positionen", "positionen.gericht"})
+    List<Bestellung> findMitDetailsByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"user", "positionen", "positionen.gericht"})
+    List<Bestellung> findMitDetailsByUserId(Long userId);
+
+    @EntityGraph(attributePaths = {"user", "positionen", "positionen.gericht"})
+    List<Bestellung> findMitDetailsByAbholDatum(LocalDate abholDatum);
+
+    @EntityGraph(attributePaths = {"user", "positionen", "positionen.gericht"})
+    Optional<Bestellung> findMitDetailsById(Long id);
+
+    // Kandidaten für einen Sammel-Statuswechsel: Bestellungen eines Tages im Zeitraum [von, bis) mit einem der Status
+    @Query("SELECT b.id FROM Bestellung b WHERE b.abholDatum = :datum AND b.abholZeit >= :von AND b.abholZeit < :bis " +
+            "AND b.status IN :status ORDER BY b.abholZeit, b.id")
+    List<Long> findIdsFuerStatuswechsel(@Param("datum") LocalDate datum, @Param("von") LocalTime von,
+                                        @Param("bis") LocalTime bis, @Param("status") Collection<BestellStatus> status);
+
+    @Query("SELECT b.id, b.status FROM Bestellung b WHERE b.id IN :ids")
+    List<Object[]> findStatusByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Belegung der Abholzeiten eines Tages: Zeilen aus [abholZeit, anzahl], ohne Bestellungen im angegebenen Status
+    @Query("SELECT b.abholZeit, COUNT(b) FROM Bestellung b WHERE b.abholDatum = :datum AND b.status <> :ausgenommen GROUP BY b.abholZeit")
+    List<Object[]> countByAbholZeit(@Param("datum") LocalDate datum, @Param("ausgenommen") BestellStatus ausgenommen);
 }
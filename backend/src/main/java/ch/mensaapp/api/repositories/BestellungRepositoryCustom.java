@@ -0,0 +1,24 @@
+package ch.mensaapp.api.repositories;
+
+import ch.mensaapp.api.payload.request.BestellungFilterRequest;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface BestellungRepositoryCustom {
+
+    /**
+     * IDs einer Seite der Bestellübersicht, absteigend nach (abholDatum, id). Ist ein Cursor
+     * gesetzt, beginnt die Seite direkt nach dieser Bestellung (Keyset-Pagination), sodass
+     * die Kosten unabhängig davon sind, wie weit geblättert wurde.
+     */
+    List<Long> findSeitenIds(BestellungFilterRequest filter, LocalDate nachAbholDatum, Long nachId, int limit);
+
+    /**
+     * Setzt den Status aller Bestellungen, deren aktueller Status in :von liegt, in einem Statement;
+     * bei einer Stornierung auch den Zahlungsstatus. Die Zeilen werden dabei gesperrt; geliefert werden
+     * [id, alter Status, abhol_datum, abhol_zeit] der tatsächlich geänderten Bestellungen.
+     */
+    List<Object[]> updateStatus(Collection<Long> ids, Collection<String> von, String ziel);
+}
@@ -0,0 +1,83 @@
+package ch.mensaapp.api.repositories;
+
+import ch.mensaapp.api.models.Bestellung;
+import ch.mensaapp.api.payload.request.BestellungFilterRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class BestellungRepositoryImpl implements BestellungRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findSeitenIds(BestellungFilterRequest filter, LocalDate nachAbholDatum, Long nachId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Bestellung> bestellung = query.from(Bestellung.class);
+        Path<LocalDate> abholDatum = bestellung.get("abholDatum");
+        Path<Long> id = bestellung.get("id");
+
+        List<Predicate> bedingungen = new ArrayList<>();
+        if (filter.getStatus() != null) {
+            bedingungen.add(cb.equal(bestellung.get("status"), filter.getStatus()));
+        }
+        if (filter.getZahlungsStatus() != null) {
+            bedingungen.add(cb.equal(bestellung.get("zahlungsStatus"), filter.getZahlungsStatus()));
+        }
+        if (filter.getVon() != null) {
+            bedingungen.add(cb.greaterThanOrEqualTo(abholDatum, filter.getVon()));
+        }
+        if (filter.getBis() != null) {
+            bedingungen.add(cb.lessThanOrEqualTo(abholDatum, filter.getBis()));
+        }
+        if (nachAbholDatum != null && nachId != null) {
+            // (abholDatum, id) < (nachAbholDatum, nachId); die zusätzliche Obergrenze auf abholDatum ist
+            // redundant, begrenzt aber den Indexbereich, den die OR-Bedingung allein nicht eingrenzt
+            bedingungen.add(cb.lessThanOrEqualTo(abholDatum, nachAbholDatum));
+            bedingungen.add(cb.or(
+                    cb.lessThan(abholDatum, nachAbholDatum),
+                    cb.and(cb.equal(abholDatum, nachAbholDatum), cb.lessThan(id, nachId))));
+        }
+
+        query.select(id)
+                .where(bedingungen.toArray(new Predicate[0]))
+                .orderBy(cb.desc(abholDatum), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Wie @Modifying(flushAutomatically = true, clearAutomatically = true), das Spring Data für
+    // Abfragen mit Ergebnis (RETURNING) nicht zulässt: Bestellungen im Persistence Context trügen
+    // nach dem Statement noch den alten Status
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<Object[]> updateStatus(Collection<Long> ids, Collection<String> von, String ziel) {
+        entityManager.flush();
+        List<Object[]> geaendert = entityManager.createNativeQuery("UPDATE bestellungen b SET status = :ziel, " +
+                        "zahlungs_status = CASE WHEN :ziel = 'STORNIERT' THEN 'STORNIERT' ELSE b.zahlungs_status END " +
+                        "FROM (SELECT id, status FROM bestellungen WHERE id IN (:ids) AND status IN (:von) FOR UPDATE) alt " +
+                        "WHERE b.id = alt.id " +
+                        "RETURNING b.id, alt.status, b.abhol_datum, b.abhol_zeit")
+                .setParameter("ids", ids)
+                .setParameter("von", von)
+                .setParameter("ziel", ziel)
+                .getResultList();
+        entityManager.clear();
+        return geaendert;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +27,12 @@ public interface MenuplanRepository extends JpaRepository<Menuplan, Long> {
     // Optimized query to get available dates for a specific dish
     @Query("SELECT DISTINCT m.datum FROM Menuplan m JOIN m.gerichte g WHERE g.id = :gerichtId AND m.datum >= :today ORDER BY m.datum ASC")
     List<LocalDate> findMenuplanDatesForGericht(@Param("gerichtId") Long gerichtId, @Param("today") LocalDate today);
+
+    // Verfügbare Daten für mehrere Gerichte in einer Abfrage: Zeilen aus [gerichtId, datum]
+    @Query("SELECT g.id, m.datum FROM Menuplan m JOIN m.gerichte g WHERE g.id IN :gerichtIds AND m.datum >= :today ORDER BY m.datum ASC")
+    List<Object[]> findMenuplanDatesForGerichte(@Param("gerichtIds") Collection<Long> gerichtIds, @Param("today") LocalDate today);
+
+    // Nur die Daten der Menüpläne ab einem Datum, ohne die Menüpläne samt Gerichten zu laden
+    @Query("SELECT m.datum FROM Menuplan m WHERE m.datum >= :datum ORDER BY m.datum ASC")
+    List<LocalDate> findDatenAb(@Param("datum") LocalDate datum);
 }
@@ -0,0 +1,57 @@
+package ch.mensaapp.api.repositories;
+
+import ch.mensaapp.api.models.ProduktionsMenge;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProduktionsMengeRepository extends JpaRepository<ProduktionsMenge, Long> {
+
+    @Query("SELECT p FROM ProduktionsMenge p JOIN FETCH p.gericht WHERE p.abholDatum = :datum AND p.anzahl <> 0")
+    List<ProduktionsMenge> findByAbholDatum(@Param("datum") LocalDate datum);
+
+    // Addiert die Menge atomar auf die Zeile (Datum, Gericht, Status) bzw. legt sie an
+    @Modifying
+    @Query(value = "INSERT INTO produktions_mengen (abhol_datum, gericht_id, status, anzahl) " +
+            "VALUES (:datum, :gerichtId, :status, :delta) " +
+            "ON CONFLICT (abhol_datum, gericht_id, status) " +
+            "DO UPDATE SET anzahl = produktions_mengen.anzahl + EXCLUDED.anzahl", nativeQuery = true)
+    void addiere(@Param("datum") LocalDate datum, @Param("gerichtId") Long gerichtId,
+                 @Param("status") String status, @Param("delta") int delta);
+
+    @Modifying
+    @Query("DELETE FROM ProduktionsMenge p WHERE p.abholDatum = :datum")
+    int deleteByAbholDatum(@Param("datum") LocalDate datum);
+
+    @Modifying
+    @Query("DELETE FROM ProduktionsMenge p")
+    int deleteAllMengen();
+
+    // Mengen pro Bestellung und Gericht: Zeilen aus [bestellungId, gerichtId, anzahl]
+    @Query("SELECT p.bestellung.id, p.gericht.id, SUM(p.anzahl) FROM BestellPosition p " +
+            "WHERE p.bestellung.id IN :bestellungIds GROUP BY p.bestellung.id, p.gericht.id")
+    List<Object[]> sumMengenProBestellungUndGericht(@Param("bestellungIds") Collection<Long> bestellungIds);
+
+    // Neuaufbau eines Tages aus den Bestellpositionen
+    @Modifying
+    @Query(value = "INSERT INTO produktions_mengen (abhol_datum, gericht_id, status, anzahl) " +
+            "SELECT b.abhol_datum, p.gericht_id, b.status, SUM(p.anzahl) " +
+            "FROM bestell_positionen p JOIN bestellungen b ON b.id = p.bestellung_id " +
+            "WHERE b.abhol_datum = :datum " +
+            "GROUP BY b.abhol_datum, p.gericht_id, b.status", nativeQuery = true)
+    int insertAusBestellungen(@Param("datum") LocalDate datum);
+
+    @Modifying
+    @Query(value = "INSERT INTO produktions_mengen (abhol_datum, gericht_id, status, anzahl) " +
+            "SELECT b.abhol_datum, p.gericht_id, b.status, SUM(p.anzahl) " +
+            "FROM bestell_positionen p JOIN bestellungen b ON b.id = p.bestellung_id " +
+            "GROUP BY b.abhol_datum, p.gericht_id, b.status", nativeQuery = true)
+    int insertAlleAusBestellungen();
+}
@@ -2,11 +2,37 @@ package ch.mensaapp.api.repositories;
 
 import ch.mensaapp.api.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail(String email);
+
+    @Query("SELECT u.securityVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findSecurityVersionById(@Param("id") Long id);
+
+    // Setzt die Sperre nur, wenn der Account nicht (mehr) gesperrt ist; liefert die Anzahl geänderter Zeilen
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.accountNonLocked = false, u.lockTime = :lockTime, u.failedAttempt = :failedAttempt " +
+            "WHERE u.email = :email AND (u.accountNonLocked = true OR u.lockTime < :expiredBefore)")
+    int lockAccount(@Param("email") String email,
+                    @Param("failedAttempt") int failedAttempt,
+                    @Param("lockTime") Date lockTime,
+                    @Param("expiredBefore") Date expiredBefore);
+
+    // Hebt alle abgelaufenen Sperren in einem Statement auf
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.accountNonLocked = true, u.lockTime = null, u.failedAttempt = 0 " +
+            "WHERE u.accountNonLocked = false AND u.lockTime < :expiredBefore")
+    int unlockExpiredAccounts(@Param("expiredBefore") Date expiredBefore);
 }
@@ -0,0 +1,220 @@
+package ch.mensaapp.api.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Begrenzt Anfragen an die Login-, Registrierungs- und MFA-Endpunkte pro Client-IP und
+ * pro Account, bevor BCrypt- oder TOTP-Berechnungen bzw. Datenbankzugriffe stattfinden.
+ * Abgelehnte Anfragen erhalten 429 mit Retry-After, Bodies über 4 KB 413.
+ */
+public class AuthRateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthRateLimitFilter.class);
+
+    private static final Duration PERIOD = Duration.ofMinutes(1);
+    // Grösster zugelassener Body; Login-, Registrierungs- und MFA-Anfragen sind deutlich kleiner
+    private static final int MAX_INSPECTED_BODY_BYTES = 4096;
+
+    enum Endpoint {
+        SIGNIN, SIGNUP, MFA
+    }
+
+    @Value("${app.security.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.rate-limit.signin.per-ip:20}")
+    private int signinPerIp;
+
+    @Value("${app.security.rate-limit.signin.per-account:10}")
+    private int signinPerAccount;
+
+    @Value("${app.security.rate-limit.signup.per-ip:5}")
+    private int signupPerIp;
+
+    @Value("${app.security.rate-limit.signup.per-account:3}")
+    private int signupPerAccount;
+
+    @Value("${app.security.rate-limit.mfa.per-ip:20}")
+    private int mfaPerIp;
+
+    @Value("${app.security.rate-limit.mfa.per-account:10}")
+    private int mfaPerAccount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Endpoint, Limits> limits = new EnumMap<>(Endpoint.class);
+
+    @PostConstruct
+    void init() {
+        limits.put(Endpoint.SIGNIN, new Limits(signinPerIp, signinPerAccount));
+        limits.put(Endpoint.SIGNUP, new Limits(signupPerIp, signupPerAccount));
+        limits.put(Endpoint.MFA, new Limits(mfaPerIp, mfaPerAccount));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || resolveEndpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Endpoint endpoint = resolveEndpoint(request);
+        Limits endpointLimits = limits.get(endpoint);
+        long now = System.nanoTime();
+
+        // Zuerst die IP prüfen: dafür muss der Body nicht gelesen werden
+        long waitNanos = endpointLimits.perIp.tryAcquire(request.getRemoteAddr(), now);
+        if (waitNanos > 0) {
+            reject(endpoint, endpointLimits, request, response, waitNanos);
+            return;
+        }
+
+        // Grössere Bodies werden abgelehnt: sonst liesse sich das Limit pro Account durch Auffüllen umgehen
+        if (request.getContentLengthLong() > MAX_INSPECTED_BODY_BYTES) {
+            rejectTooLarge(endpoint, endpointLimits, request, response);
+            return;
+        }
+        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request, MAX_INSPECTED_BODY_BYTES);
+        byte[] body = cachedRequest.getCachedBody();
+        if (body == null) {
+            rejectTooLarge(endpoint, endpointLimits, request, response);
+            return;
+        }
+        String account = resolveAccount(body);
+        if (account != null) {
+            waitNanos = endpointLimits.perAccount.tryAcquire(account, now);
+            if (waitNanos > 0) {
+                reject(endpoint, endpointLimits, request, response, waitNanos);
+                return;
+            }
+        }
+
+        endpointLimits.admitted.incrementAndGet();
+        filterChain.doFilter(cachedRequest, response);
+    }
+
+    private void reject(Endpoint endpoint, Limits endpointLimits, HttpServletRequest request,
+                        HttpServletResponse response, long waitNanos) throws IOException {
+        endpointLimits.rejected.incrementAndGet();
+        logger.debug("Rate-Limit für {} überschritten: {}", endpoint, request.getRemoteAddr());
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"message\":\"Zu viele Anfragen. Bitte versuchen Sie es in "
+                + retryAfterSeconds + " Sekunden erneut.\"}");
+    }
+
+    private void rejectTooLarge(Endpoint endpoint, Limits endpointLimits, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        endpointLimits.rejected.incrementAndGet();
+        logger.debug("Zu grosser Body für {}: {}", endpoint, request.getRemoteAddr());
+
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"message\":\"Die Anfrage ist zu gross.\"}");
+    }
+
+    private Endpoint resolveEndpoint(HttpServletRequest request) {
+        String path = request.getServletPath();
+        if ("/api/auth/signin".equals(path)) {
+            return Endpoint.SIGNIN;
+        }
+        if ("/api/auth/signup".equals(path)) {
+            return Endpoint.SIGNUP;
+        }
+        if (path.startsWith("/api/auth/mfa-")) {
+            return Endpoint.MFA;
+        }
+        return null;
+    }
+
+    // E-Mail bzw. MFA-Challenge-Token aus dem JSON-Body; ohne Signaturprüfung, es dient nur als Schlüssel
+    private String resolveAccount(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            if (json == null) {
+                return null;
+            }
+            JsonNode email = json.get("email");
+            if (email != null && email.isTextual()) {
+                return email.asText().trim().toLowerCase();
+            }
+            JsonNode challengeToken = json.get("challengeToken");
+            if (challengeToken != null && challengeToken.isTextual()) {
+                return challengeToken.asText();
+            }
+        } catch (IOException e) {
+            // Ungültiges JSON wird vom Controller mit 400 beantwortet
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.rate-limit.purge-interval:60000}")
+    public void purgeIdleBuckets() {
+        long now = System.nanoTime();
+        for (Limits endpointLimits : limits.values()) {
+            endpointLimits.perIp.purgeIdle(now);
+            endpointLimits.perAccount.purgeIdle(now);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limits.forEach((endpoint, endpointLimits) -> {
+            String name = endpoint.name().toLowerCase();
+            FunctionCounter.builder("auth.ratelimit.requests", endpointLimits.admitted, AtomicLong::get)
+                    .description("Vom Rate-Limit zugelassene Anfragen")
+                    .tag("endpoint", name)
+                    .tag("outcome", "admitted")
+                    .register(registry);
+            FunctionCounter.builder("auth.ratelimit.requests", endpointLimits.rejected, AtomicLong::get)
+                    .description("Vom Rate-Limit abgelehnte Anfragen")
+                    .tag("endpoint", name)
+                    .tag("outcome", "rejected")
+                    .register(registry);
+        });
+    }
+
+    private static final class Limits {
+        private final TokenBucketStore perIp;
+        private final TokenBucketStore perAccount;
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        private Limits(int perIpPerMinute, int perAccountPerMinute) {
+            this.perIp = new TokenBucketStore(perIpPerMinute, PERIOD);
+            this.perAccount = new TokenBucketStore(perAccountPerMinute, PERIOD);
+        }
+    }
+}
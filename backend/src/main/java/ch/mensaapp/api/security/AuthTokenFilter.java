@@ -9,7 +9,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,7 +20,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private SecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -30,10 +32,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            JwtParseResult parseResult = jwt != null ? jwtUtils.parse(jwt) : null;
+            UserDetailsImpl userDetails = parseResult != null && parseResult.isValid()
+                    && !tokenRevocationList.isRevoked(parseResult.getClaims().getId())
+                    ? jwtUtils.getUserDetailsFromClaims(parseResult.getClaims())
+                    : null;
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // Token ist nur gültig, solange die Security-Version des Benutzers unverändert ist
+            if (userDetails != null
+                    && securityVersionRegistry.isCurrent(userDetails.getId(), userDetails.getSecurityVersion())) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null,
                         userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -4,6 +4,7 @@ import ch.mensaapp.api.services.BruteForceProtectionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -15,6 +16,9 @@ public class AuthenticationFailureListener implements ApplicationListener<Authen
     @Override
     public void onApplicationEvent(AuthenticationFailureBadCredentialsEvent event) {
         String email = event.getAuthentication().getName();
-        bruteForceService.registerFailedAttempt(email);
+        String clientIp = event.getAuthentication().getDetails() instanceof WebAuthenticationDetails details
+                ? details.getRemoteAddress()
+                : null;
+        bruteForceService.registerFailedAttempt(email, clientIp);
     }
 }
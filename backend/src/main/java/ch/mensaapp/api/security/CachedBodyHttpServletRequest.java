@@ -0,0 +1,111 @@
+package ch.mensaapp.api.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Liest höchstens {@code limit} Bytes des Request-Bodys vorab ein, damit ein Filter sie
+ * auswerten kann, und liefert dem Controller anschliessend den vollständigen Body
+ * (vorab gelesener Teil gefolgt vom Rest des ursprünglichen Streams).
+ */
+public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final byte[] prefix;
+    private final boolean complete;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    public CachedBodyHttpServletRequest(HttpServletRequest request, int limit) throws IOException {
+        super(request);
+        byte[] read = request.getInputStream().readNBytes(limit + 1);
+        this.complete = read.length <= limit;
+        this.prefix = read;
+    }
+
+    /**
+     * Der vorab gelesene Body oder null, wenn er grösser als das Limit ist.
+     */
+    public byte[] getCachedBody() {
+        return complete ? prefix : null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (reader != null) {
+            throw new IllegalStateException("getReader() wurde bereits aufgerufen");
+        }
+        if (inputStream == null) {
+            InputStream body = complete
+                    ? new ByteArrayInputStream(prefix)
+                    : new SequenceInputStream(new ByteArrayInputStream(prefix), super.getInputStream());
+            inputStream = new BodyInputStream(body);
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            if (inputStream != null) {
+                throw new IllegalStateException("getInputStream() wurde bereits aufgerufen");
+            }
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            InputStream body = complete
+                    ? new ByteArrayInputStream(prefix)
+                    : new SequenceInputStream(new ByteArrayInputStream(prefix), super.getInputStream());
+            reader = new BufferedReader(new InputStreamReader(body, charset));
+        }
+        return reader;
+    }
+
+    private static final class BodyInputStream extends ServletInputStream {
+        private final InputStream delegate;
+        private boolean finished;
+
+        private BodyInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            finished = value == -1;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = delegate.read(buffer, offset, length);
+            finished = count == -1;
+            return count;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        // Der Body liegt bereits vor (isReady() ist immer true): Der Listener liest ihn direkt vollständig
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ch.mensaapp.api.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Arrays;
+
+/**
+ * Ergebnis von {@link JwtUtils#parse(String)}: entweder die Claims eines gültigen
+ * Tokens oder der Grund, warum das Token abgelehnt wurde.
+ */
+public final class JwtParseResult {
+
+    public enum Failure {
+        EMPTY,
+        MALFORMED,
+        EXPIRED,
+        UNSUPPORTED,
+        INVALID_SIGNATURE
+    }
+
+    // Fehlerergebnisse tragen keinen Zustand und werden daher geteilt
+    private static final JwtParseResult[] FAILURES = Arrays.stream(Failure.values())
+            .map(failure -> new JwtParseResult(null, failure))
+            .toArray(JwtParseResult[]::new);
+
+    private final Claims claims;
+    private final Failure failure;
+
+    private JwtParseResult(Claims claims, Failure failure) {
+        this.claims = claims;
+        this.failure = failure;
+    }
+
+    static JwtParseResult valid(Claims claims) {
+        return new JwtParseResult(claims, null);
+    }
+
+    static JwtParseResult failed(Failure failure) {
+        return FAILURES[failure.ordinal()];
+    }
+
+    public boolean isValid() {
+        return claims != null;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public Failure getFailure() {
+        return failure;
+    }
+}
@@ -3,59 +3,273 @@ package ch.mensaapp.api.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.crypto.SecretKey;
 import java.security.Key;
-import java.util.Date;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLES = "roles";
+    private static final String CLAIM_SECURITY_VERSION = "sv";
+    private static final String CLAIM_TOKEN_TYPE = "typ";
+    private static final String TOKEN_TYPE_MFA_CHALLENGE = "mfa";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwt.mfa-challenge-expiration:300000}")
+    private int mfaChallengeExpirationMs;
+
+    // Frühere Secrets, deren Tokens nach einer Rotation noch bis zum Ablauf akzeptiert werden
+    @Value("${app.jwt.previous-secrets:}")
+    private String[] previousSecrets;
+
+    @Value("${app.jwt.retained-keys:2}")
+    private int retainedKeys;
+
+    // Schlüssel und Parser werden einmalig aufgebaut und nur bei einer Rotation ersetzt
+    private final AtomicReference<SigningKeys> signingKeys = new AtomicReference<>();
+
+    @PostConstruct
+    void init() {
+        SigningKeys keys = SigningKeys.of(jwtSecret);
+        if (previousSecrets != null) {
+            for (String previousSecret : previousSecrets) {
+                if (StringUtils.hasText(previousSecret)) {
+                    keys = keys.withPreviousKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(previousSecret.trim())));
+                }
+            }
+        }
+        signingKeys.set(keys);
+    }
+
+    /**
+     * Ersetzt den Signaturschlüssel zur Laufzeit. Neue Tokens werden mit dem neuen
+     * Schlüssel signiert; Tokens der zuletzt verwendeten Schlüssel bleiben gültig.
+     *
+     * @return die Key-ID des neuen Schlüssels
+     */
+    public String rotateKey(String base64Secret) {
+        SecretKey newKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+        String keyId = signingKeys.updateAndGet(keys -> keys.rotate(newKey, Math.max(retainedKeys, 1))).currentKeyId;
+        logger.info("JWT Signaturschlüssel rotiert, neue Key-ID: {}", keyId);
+        return keyId;
+    }
+
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        return generateJwtToken(userPrincipal);
+    }
+
+    public String generateJwtToken(UserDetailsImpl userPrincipal) {
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
 
+        SigningKeys keys = signingKeys.get();
+        long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keys.currentKeyId)
+                // Eindeutige Token-ID, damit einzelne Tokens beim Logout gesperrt werden können
+                .setId(UUID.randomUUID().toString())
                 .setSubject((userPrincipal.getUsername()))
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .claim(CLAIM_USER_ID, userPrincipal.getId())
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_SECURITY_VERSION, userPrincipal.getSecurityVersion())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpirationMs))
+                .signWith(keys.currentKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Kurzlebiges Token, das nach erfolgreicher Passwortprüfung den zweiten Login-Schritt
+     * autorisiert. Es trägt keine Rollen und wird vom AuthTokenFilter nicht akzeptiert.
+     */
+    public String generateMfaChallengeToken(UserDetailsImpl userPrincipal) {
+        SigningKeys keys = signingKeys.get();
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keys.currentKeyId)
+                .setSubject(userPrincipal.getUsername())
+                .claim(CLAIM_TOKEN_TYPE, TOKEN_TYPE_MFA_CHALLENGE)
+                .claim(CLAIM_USER_ID, userPrincipal.getId())
+                .claim(CLAIM_SECURITY_VERSION, userPrincipal.getSecurityVersion())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + mfaChallengeExpirationMs))
+                .signWith(keys.currentKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    /**
+     * Liefert die Claims eines gültigen MFA-Challenge-Tokens, sonst null.
+     */
+    public Claims parseMfaChallengeToken(String challengeToken) {
+        JwtParseResult result = parse(challengeToken);
+        if (!result.isValid() || !TOKEN_TYPE_MFA_CHALLENGE.equals(result.getClaims().get(CLAIM_TOKEN_TYPE))) {
+            return null;
+        }
+        return result.getClaims();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+    public int getSecurityVersion(Claims claims) {
+        Number securityVersion = claims.get(CLAIM_SECURITY_VERSION, Number.class);
+        return securityVersion != null ? securityVersion.intValue() : -1;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Prüft das Token mit dem vorbereiteten Parser. Liefert die Claims oder den Grund der Ablehnung.
+     */
+    public JwtParseResult parse(String authToken) {
+        if (!StringUtils.hasText(authToken)) {
+            return JwtParseResult.failed(JwtParseResult.Failure.EMPTY);
+        }
+
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            return JwtParseResult.valid(signingKeys.get().parser.parseClaimsJws(authToken).getBody());
+        } catch (ExpiredJwtException e) {
+            logger.debug("JWT Token ist abgelaufen: {}", e.getMessage());
+            return JwtParseResult.failed(JwtParseResult.Failure.EXPIRED);
         } catch (MalformedJwtException e) {
             logger.error("Ungültiges JWT Token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT Token ist abgelaufen: {}", e.getMessage());
+            return JwtParseResult.failed(JwtParseResult.Failure.MALFORMED);
         } catch (UnsupportedJwtException e) {
             logger.error("JWT Token wird nicht unterstützt: {}", e.getMessage());
+            return JwtParseResult.failed(JwtParseResult.Failure.UNSUPPORTED);
         } catch (IllegalArgumentException e) {
             logger.error("JWT Claims String ist leer: {}", e.getMessage());
+            return JwtParseResult.failed(JwtParseResult.Failure.EMPTY);
+        } catch (JwtException e) {
+            logger.error("JWT Signatur ist ungültig: {}", e.getMessage());
+            return JwtParseResult.failed(JwtParseResult.Failure.INVALID_SIGNATURE);
+        }
+    }
+
+    /**
+     * Baut den Principal direkt aus den Claims auf, ohne den Benutzer aus der Datenbank zu laden.
+     * Liefert null für Tokens im alten Format ohne Benutzer-ID oder Security-Version
+     * sowie für MFA-Challenge-Tokens.
+     */
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number securityVersion = claims.get(CLAIM_SECURITY_VERSION, Number.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (userId == null || securityVersion == null || roles == null || claims.containsKey(CLAIM_TOKEN_TYPE)) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+        for (Object role : roles) {
+            authorities.add(new SimpleGrantedAuthority(role.toString()));
+        }
+
+        return new UserDetailsImpl(
+                userId.longValue(),
+                claims.getSubject(),
+                null,
+                null,
+                null,
+                false,
+                null,
+                true,
+                securityVersion.intValue(),
+                authorities);
+    }
+
+    /**
+     * Unveränderlicher Satz aus aktuellem Signaturschlüssel, noch akzeptierten
+     * Vorgängern und dem dazu passenden, wiederverwendbaren Parser.
+     */
+    private static final class SigningKeys {
+        private final String currentKeyId;
+        private final SecretKey currentKey;
+        // Reihenfolge: aktueller Schlüssel zuerst, danach die Vorgänger
+        private final LinkedHashMap<String, SecretKey> verificationKeys;
+        private final JwtParser parser;
+
+        private SigningKeys(String currentKeyId, SecretKey currentKey, LinkedHashMap<String, SecretKey> verificationKeys) {
+            this.currentKeyId = currentKeyId;
+            this.currentKey = currentKey;
+            this.verificationKeys = verificationKeys;
+            this.parser = Jwts.parserBuilder()
+                    .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                        // jjwt 0.11 deklariert den Header ohne Typparameter; JwsHeader<?> wäre kein Override
+                        @Override
+                        @SuppressWarnings("rawtypes")
+                        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                            return verificationKey(header.getKeyId());
+                        }
+                    })
+                    .build();
+        }
+
+        private SecretKey verificationKey(String keyId) {
+            if (keyId == null) {
+                // Tokens ohne Key-ID stammen aus der Zeit vor der Rotation
+                return currentKey;
+            }
+            SecretKey key = verificationKeys.get(keyId);
+            if (key == null) {
+                throw new SignatureException("Unbekannte JWT Key-ID: " + keyId);
+            }
+            return key;
+        }
+
+        static SigningKeys of(String base64Secret) {
+            SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+            LinkedHashMap<String, SecretKey> keys = new LinkedHashMap<>();
+            keys.put(keyId(key), key);
+            return new SigningKeys(keyId(key), key, keys);
         }
 
-        return false;
+        SigningKeys withPreviousKey(SecretKey previousKey) {
+            LinkedHashMap<String, SecretKey> keys = new LinkedHashMap<>(verificationKeys);
+            keys.putIfAbsent(keyId(previousKey), previousKey);
+            return new SigningKeys(currentKeyId, currentKey, keys);
+        }
+
+        SigningKeys rotate(SecretKey newKey, int retainedKeys) {
+            String newKeyId = keyId(newKey);
+            LinkedHashMap<String, SecretKey> keys = new LinkedHashMap<>();
+            keys.put(newKeyId, newKey);
+            for (Map.Entry<String, SecretKey> entry : verificationKeys.entrySet()) {
+                if (keys.size() > retainedKeys) {
+                    break;
+                }
+                keys.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            return new SigningKeys(newKeyId, newKey, keys);
+        }
+
+        // Deterministisch, damit alle Instanzen mit demselben Secret dieselbe Key-ID verwenden
+        private static String keyId(SecretKey key) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getEncoded());
+                return HexFormat.of().formatHex(digest, 0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
     }
 }
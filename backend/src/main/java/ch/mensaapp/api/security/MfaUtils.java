@@ -1,6 +1,9 @@
 package ch.mensaapp.api.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import dev.samstevens.totp.code.*;
+import dev.samstevens.totp.exceptions.CodeGenerationException;
 import dev.samstevens.totp.exceptions.QrGenerationException;
 import dev.samstevens.totp.qr.QrData;
 import dev.samstevens.totp.qr.QrGenerator;
@@ -9,16 +12,48 @@ import dev.samstevens.totp.secret.DefaultSecretGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
 import dev.samstevens.totp.time.SystemTimeProvider;
 import dev.samstevens.totp.time.TimeProvider;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+
 import static dev.samstevens.totp.util.Utils.getDataUriForImage;
 
 @Component
 public class MfaUtils {
+    private static final int TIME_PERIOD_SECONDS = 30;
+    // Akzeptierte Abweichung in Zeitschritten (t-1 bis t+1), wie beim DefaultCodeVerifier
+    private static final int ALLOWED_TIME_PERIOD_DISCREPANCY = 1;
+
     private final SecretGenerator secretGenerator = new DefaultSecretGenerator();
     private final QrGenerator qrGenerator = new ZxingPngQrGenerator();
     private final TimeProvider timeProvider = new SystemTimeProvider();
     private final CodeGenerator codeGenerator = new DefaultCodeGenerator();
-    private final CodeVerifier codeVerifier = new DefaultCodeVerifier(codeGenerator, timeProvider);
+
+    @Value("${app.security.mfa.code-cache.maximum-size:10000}")
+    private long codeCacheMaximumSize;
+
+    // Codes pro Secret für die aktuell gültigen Zeitschritte; wird beim nächsten Zeitschritt neu berechnet
+    private Cache<String, WindowCodes> windowCodes;
+
+    // Bereits verwendete Codes (Secret + Zeitschritt), damit ein Code nur einmal akzeptiert wird
+    private Cache<String, Boolean> usedCodes;
+
+    @PostConstruct
+    void init() {
+        Duration codeLifetime = Duration.ofSeconds((2L * ALLOWED_TIME_PERIOD_DISCREPANCY + 1) * TIME_PERIOD_SECONDS);
+        windowCodes = Caffeine.newBuilder()
+                .maximumSize(codeCacheMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(TIME_PERIOD_SECONDS))
+                .build();
+        usedCodes = Caffeine.newBuilder()
+                .maximumSize(codeCacheMaximumSize)
+                .expireAfterWrite(codeLifetime)
+                .build();
+    }
 
     public String generateSecret() {
         return secretGenerator.generate();
@@ -42,7 +77,61 @@ public class MfaUtils {
         }
     }
 
+    /**
+     * Prüft den Code gegen die Zeitschritte t-1 bis t+1. Ein erfolgreich verwendeter
+     * Code wird für seinen Zeitschritt gesperrt und danach nicht erneut akzeptiert.
+     */
     public boolean verifyCode(String code, String secret) {
-        return codeVerifier.isValidCode(secret, code);
+        if (code == null || secret == null) {
+            return false;
+        }
+
+        long currentStep = Math.floorDiv(timeProvider.getTime(), TIME_PERIOD_SECONDS);
+        WindowCodes codes = windowCodes.getIfPresent(secret);
+        if (codes == null || codes.currentStep != currentStep) {
+            codes = computeWindowCodes(secret, currentStep);
+            if (codes == null) {
+                return false;
+            }
+            windowCodes.put(secret, codes);
+        }
+
+        byte[] codeBytes = code.getBytes(StandardCharsets.US_ASCII);
+        long matchedStep = Long.MIN_VALUE;
+        // Alle Zeitschritte vergleichen, damit die Laufzeit nicht verrät, welcher Schritt passt
+        for (int i = 0; i < codes.codes.length; i++) {
+            if (MessageDigest.isEqual(codes.codes[i], codeBytes)) {
+                matchedStep = currentStep - ALLOWED_TIME_PERIOD_DISCREPANCY + i;
+            }
+        }
+        if (matchedStep == Long.MIN_VALUE) {
+            return false;
+        }
+
+        return usedCodes.asMap().putIfAbsent(secret + ":" + matchedStep, Boolean.TRUE) == null;
+    }
+
+    private WindowCodes computeWindowCodes(String secret, long currentStep) {
+        byte[][] codes = new byte[2 * ALLOWED_TIME_PERIOD_DISCREPANCY + 1][];
+        try {
+            for (int i = 0; i < codes.length; i++) {
+                long step = currentStep - ALLOWED_TIME_PERIOD_DISCREPANCY + i;
+                codes[i] = codeGenerator.generate(secret, step).getBytes(StandardCharsets.US_ASCII);
+            }
+        } catch (CodeGenerationException e) {
+            // Wie beim DefaultCodeVerifier gilt ein nicht berechenbarer Code als ungültig
+            return null;
+        }
+        return new WindowCodes(currentStep, codes);
+    }
+
+    private static final class WindowCodes {
+        private final long currentStep;
+        private final byte[][] codes;
+
+        private WindowCodes(long currentStep, byte[][] codes) {
+            this.currentStep = currentStep;
+            this.codes = codes;
+        }
     }
 }
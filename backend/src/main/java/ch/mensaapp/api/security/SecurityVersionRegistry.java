@@ -0,0 +1,71 @@
+package ch.mensaapp.api.security;
+
+import ch.mensaapp.api.models.User;
+import ch.mensaapp.api.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Hält die aktuelle Security-Version pro Benutzer im Speicher, damit der
+ * AuthTokenFilter JWTs ohne Datenbankzugriff pro Request prüfen kann. Einträge
+ * laufen nach kurzer Zeit ab und werden dann aus der Datenbank nachgeladen: Auf
+ * dieser Instanz gilt eine Änderung sofort, auf weiteren Instanzen spätestens
+ * nach Ablauf der TTL.
+ */
+@Component
+public class SecurityVersionRegistry {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.security.version-cache.ttl:30s}")
+    private Duration ttl;
+
+    @Value("${app.security.version-cache.maximum-size:100000}")
+    private long maximumSize;
+
+    private LoadingCache<Long, Integer> versions;
+
+    @PostConstruct
+    void init() {
+        // Unbekannte Benutzer liefern null und werden nicht zwischengespeichert
+        versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build(userId -> userRepository.findSecurityVersionById(userId).orElse(null));
+    }
+
+    public boolean isCurrent(Long userId, int securityVersion) {
+        Integer current = versions.get(userId);
+        return current != null && current == securityVersion;
+    }
+
+    /**
+     * Erhöht die Security-Version des Benutzers. Bereits ausgestellte Tokens
+     * werden ungültig, sobald die laufende Transaktion committed ist.
+     */
+    public void bump(User user) {
+        int newVersion = user.getSecurityVersion() + 1;
+        user.setSecurityVersion(newVersion);
+
+        Long userId = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.put(userId, newVersion);
+                }
+            });
+        } else {
+            versions.put(userId, newVersion);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ch.mensaapp.api.security;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-freier Zähler über ein gleitendes Zeitfenster pro Schlüssel (z.B. E-Mail oder IP).
+ * Das Fenster ist in Buckets aufgeteilt; jeder Bucket speichert Bucket-Nummer und Zählerstand
+ * gepackt in einem long, sodass ein einzelnes compareAndSet genügt. Veraltete Buckets werden
+ * beim nächsten Zugriff überschrieben bzw. beim Aufräumen entfernt.
+ */
+public class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final ConcurrentHashMap<String, AtomicLongArray> windows = new ConcurrentHashMap<>();
+
+    public SlidingWindowCounter(Duration window, int bucketCount) {
+        this.bucketCount = Math.max(bucketCount, 1);
+        this.bucketMillis = Math.max(window.toMillis() / this.bucketCount, 1);
+    }
+
+    /**
+     * Zählt ein Ereignis und liefert die Anzahl Ereignisse im aktuellen Fenster.
+     */
+    public int increment(String key, long nowMillis) {
+        AtomicLongArray buckets = windows.computeIfAbsent(key, k -> new AtomicLongArray(bucketCount));
+        long epoch = nowMillis / bucketMillis;
+        int index = (int) (epoch % bucketCount);
+
+        while (true) {
+            long current = buckets.get(index);
+            long next;
+            if (current >>> COUNT_BITS == epoch) {
+                long count = current & COUNT_MASK;
+                if (count == COUNT_MASK) {
+                    break;
+                }
+                next = current + 1;
+            } else {
+                // Bucket stammt aus einem früheren Durchlauf und wird neu begonnen
+                next = (epoch << COUNT_BITS) | 1;
+            }
+            if (buckets.compareAndSet(index, current, next)) {
+                break;
+            }
+        }
+        return sum(buckets, epoch);
+    }
+
+    public int count(String key, long nowMillis) {
+        AtomicLongArray buckets = windows.get(key);
+        return buckets == null ? 0 : sum(buckets, nowMillis / bucketMillis);
+    }
+
+    public void reset(String key) {
+        windows.remove(key);
+    }
+
+    /**
+     * Entfernt Schlüssel, deren Buckets alle außerhalb des Fensters liegen.
+     * Ein gleichzeitig gezähltes Ereignis kann dabei verloren gehen, was für
+     * Fehlversuchszähler unkritisch ist.
+     */
+    public int purgeExpired(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        int sizeBefore = windows.size();
+        windows.values().removeIf(buckets -> sum(buckets, epoch) == 0);
+        return sizeBefore - windows.size();
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    private int sum(AtomicLongArray buckets, long epoch) {
+        long oldestEpoch = epoch - bucketCount;
+        int total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long value = buckets.get(i);
+            long bucketEpoch = value >>> COUNT_BITS;
+            if (bucketEpoch > oldestEpoch && bucketEpoch <= epoch) {
+                total += (int) (value & COUNT_MASK);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,56 @@
+package ch.mensaapp.api.security;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-Bucket pro Schlüssel, umgesetzt als GCRA: pro Schlüssel wird nur der theoretische
+ * Ankunftszeitpunkt der nächsten Anfrage als AtomicLong gehalten und per compareAndSet
+ * fortgeschrieben. Ein voller Bucket erlaubt {@code capacity} Anfragen am Stück, danach
+ * eine Anfrage pro {@code period / capacity}.
+ */
+public class TokenBucketStore {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketStore(int capacity, Duration period) {
+        int effectiveCapacity = Math.max(capacity, 1);
+        this.emissionIntervalNanos = Math.max(period.toNanos() / effectiveCapacity, 1);
+        this.burstToleranceNanos = emissionIntervalNanos * effectiveCapacity;
+    }
+
+    /**
+     * Entnimmt ein Token. Liefert 0, wenn die Anfrage zugelassen ist, sonst die
+     * Wartezeit in Nanosekunden, bis wieder ein Token verfügbar ist.
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong theoreticalArrival = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long waitNanos = next - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Entfernt Buckets, die wieder voll sind und damit keinen Zustand mehr tragen.
+     */
+    public int purgeIdle(long nowNanos) {
+        int sizeBefore = buckets.size();
+        buckets.values().removeIf(theoreticalArrival -> theoreticalArrival.get() - nowNanos <= 0);
+        return sizeBefore - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,112 @@
+package ch.mensaapp.api.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Gesperrte Access-Tokens (per jti) bis zu ihrem Ablauf. Der Bloom-Filter beantwortet
+ * die Prüfung im AuthTokenFilter für nicht gesperrte Tokens ohne Zugriff auf die Map;
+ * nur bei einem Treffer wird in der exakten Menge nachgesehen.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final int HASH_FUNCTIONS = 4;
+
+    @Value("${app.jwt.revocation.bloom-filter-bits:1048576}")
+    private int bloomFilterBits;
+
+    // jti -> Ablaufzeitpunkt des Tokens in Millisekunden
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile AtomicLongArray bloomFilter;
+    private int bitMask;
+
+    @PostConstruct
+    void init() {
+        int bits = Integer.highestOneBit(Math.max(bloomFilterBits, Long.SIZE));
+        bitMask = bits - 1;
+        bloomFilter = new AtomicLongArray(bits / Long.SIZE);
+    }
+
+    /**
+     * Sperrt das Token bis zu seinem Ablauf. Schreibzugriffe sind selten und werden
+     * mit dem Neuaufbau des Filters synchronisiert, damit kein Eintrag verloren geht.
+     */
+    public synchronized void revoke(String tokenId, Date expiration) {
+        if (tokenId == null || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        revoked.put(tokenId, expiration.getTime());
+        addToBloomFilter(bloomFilter, tokenId);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+
+        AtomicLongArray filter = bloomFilter;
+        int hash1 = tokenId.hashCode();
+        int hash2 = mix(hash1);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = (hash1 + i * hash2) & bitMask;
+            if ((filter.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Entfernt abgelaufene Einträge und baut den Bloom-Filter neu auf, da dieser
+     * keine einzelnen Einträge löschen kann.
+     */
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval:300000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (!revoked.values().removeIf(expiration -> expiration <= now)) {
+            return;
+        }
+
+        AtomicLongArray rebuilt = new AtomicLongArray(bloomFilter.length());
+        revoked.keySet().forEach(tokenId -> addToBloomFilter(rebuilt, tokenId));
+        bloomFilter = rebuilt;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void addToBloomFilter(AtomicLongArray filter, String tokenId) {
+        int hash1 = tokenId.hashCode();
+        int hash2 = mix(hash1);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = (hash1 + i * hash2) & bitMask;
+            int index = bit >>> 6;
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = filter.get(index);
+            } while ((current & mask) == 0 && !filter.compareAndSet(index, current, current | mask));
+        }
+    }
+
+    // Zweiter, unabhängiger Hash für das Double Hashing (Finalizer aus MurmurHash3), stets ungerade
+    private static int mix(int hash) {
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h | 1;
+    }
+}
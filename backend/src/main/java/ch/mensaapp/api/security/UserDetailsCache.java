@@ -0,0 +1,42 @@
+package ch.mensaapp.api.security;
+
+import ch.mensaapp.api.config.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Entfernt zwischengespeicherte UserDetails, sobald sich der Benutzer ändert.
+ * Innerhalb einer Transaktion wird zusätzlich nach dem Commit entfernt, damit
+ * ein paralleler Login den alten Stand nicht erneut in den Cache legt.
+ */
+@Component
+public class UserDetailsCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.USER_DETAILS_CACHE);
+        if (cache == null) {
+            return;
+        }
+
+        cache.evict(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(email);
+                }
+            });
+        }
+    }
+}
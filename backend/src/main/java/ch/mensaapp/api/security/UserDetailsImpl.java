@@ -24,10 +24,11 @@ public class UserDetailsImpl implements UserDetails {
     private final String mfaSecret;
     // Account Lock Status
     private final boolean accountNonLocked;
+    private final int securityVersion;
     private final Collection<? extends GrantedAuthority> authorities;
 
     public UserDetailsImpl(Long id, String email, String password, String vorname, String nachname,
-                           boolean mfaEnabled, String mfaSecret, boolean accountNonLocked,
+                           boolean mfaEnabled, String mfaSecret, boolean accountNonLocked, int securityVersion,
                            Collection<? extends GrantedAuthority> authorities) {
         this.id = id;
         this.email = email;
@@ -37,10 +38,16 @@ public class UserDetailsImpl implements UserDetails {
         this.mfaEnabled = mfaEnabled;
         this.mfaSecret = mfaSecret;
         this.accountNonLocked = accountNonLocked;
+        this.securityVersion = securityVersion;
         this.authorities = authorities;
     }
 
     public static UserDetailsImpl build(User user) {
+        return build(user, user.isAccountNonLocked());
+    }
+
+    // accountNonLocked getrennt übergeben, damit abgelaufene Sperren vor dem nächsten Sweep nicht mehr greifen
+    public static UserDetailsImpl build(User user, boolean accountNonLocked) {
         List<GrantedAuthority> authorities = user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority(role.getName().name()))
                 .collect(Collectors.toList());
@@ -53,7 +60,8 @@ public class UserDetailsImpl implements UserDetails {
                 user.getNachname(),
                 user.isMfaEnabled(),
                 user.getMfaSecret(),
-                user.isAccountNonLocked(),
+                accountNonLocked,
+                user.getSecurityVersion(),
                 authorities);
     }
 
@@ -91,6 +99,10 @@ public class UserDetailsImpl implements UserDetails {
         return accountNonLocked;
     }
 
+    public int getSecurityVersion() {
+        return securityVersion;
+    }
+
     @Override
     public String getPassword() {
         return password;
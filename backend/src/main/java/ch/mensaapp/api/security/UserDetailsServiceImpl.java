@@ -1,10 +1,11 @@
 package ch.mensaapp.api.security;
 
+import ch.mensaapp.api.config.CacheConfig;
 import ch.mensaapp.api.models.User;
 import ch.mensaapp.api.repositories.UserRepository;
 import ch.mensaapp.api.services.BruteForceProtectionService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AccountExpiredException;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -19,19 +20,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     BruteForceProtectionService bruteForceService;
 
+    // Gesperrte Accounts werden nicht gecacht, damit die Entsperrung nach Ablauf der Wartezeit greift
     @Override
     @Transactional
+    @Cacheable(value = CacheConfig.USER_DETAILS_CACHE, key = "#email", unless = "!#result.accountNonLocked")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() ->
                         new UsernameNotFoundException("Benutzer mit E-Mail " + email + " nicht gefunden"));
 
-        // Versuch, gesperrte Accounts nach Wartezeit automatisch zu entsperren
-        if (!user.isAccountNonLocked() && bruteForceService.unlockWhenTimeExpired(user)) {
-            user = userRepository.findByEmail(email).get();
-        }
-
+        // Abgelaufene Sperren gelten sofort als aufgehoben; entsperrt wird in der Datenbank vom Sweeper
         // Gebe UserDetailsImpl zurück und lass Spring die Sperr-Checks machen
-        return UserDetailsImpl.build(user);
+        return UserDetailsImpl.build(user, !bruteForceService.isLocked(user));
     }
 }
@@ -0,0 +1,66 @@
+package ch.mensaapp.api.services;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Belegung und Kapazität der Abholzeitfenster eines Tages. Jedes Zeitfenster hat einen
+ * eigenen Zähler, der per compareAndSet erhöht wird; Bestellungen für verschiedene
+ * Zeitfenster behindern sich nicht, und es wird nie über die Kapazität hinaus reserviert.
+ */
+public class AbholSlotBelegung {
+
+    private final AtomicIntegerArray belegt;
+    private final AtomicIntegerArray kapazitaet;
+
+    public AbholSlotBelegung(int[] kapazitaet, int[] belegt) {
+        this.kapazitaet = new AtomicIntegerArray(kapazitaet);
+        this.belegt = new AtomicIntegerArray(belegt);
+    }
+
+    /**
+     * Reserviert einen Platz im Zeitfenster.
+     *
+     * @return false, wenn das Zeitfenster bereits ausgebucht ist
+     */
+    public boolean reserviere(int slot) {
+        while (true) {
+            int aktuell = belegt.get(slot);
+            if (aktuell >= kapazitaet.get(slot)) {
+                return false;
+            }
+            if (belegt.compareAndSet(slot, aktuell, aktuell + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Belegt einen Platz ohne Kapazitätsprüfung, z.B. wenn das Personal eine Stornierung rückgängig macht
+    public void belege(int slot) {
+        belegt.incrementAndGet(slot);
+    }
+
+    public void gibFrei(int slot) {
+        while (true) {
+            int aktuell = belegt.get(slot);
+            if (aktuell == 0 || belegt.compareAndSet(slot, aktuell, aktuell - 1)) {
+                return;
+            }
+        }
+    }
+
+    public void setKapazitaet(int slot, int neueKapazitaet) {
+        kapazitaet.set(slot, neueKapazitaet);
+    }
+
+    public int getKapazitaet(int slot) {
+        return kapazitaet.get(slot);
+    }
+
+    public int getBelegt(int slot) {
+        return belegt.get(slot);
+    }
+
+    public int anzahlSlots() {
+        return belegt.length();
+    }
+}
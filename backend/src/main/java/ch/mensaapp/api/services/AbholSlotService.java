@@ -0,0 +1,253 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.AbholSlotKapazitaet;
+import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.payload.response.AbholSlotResponse;
+import ch.mensaapp.api.repositories.AbholSlotKapazitaetRepository;
+import ch.mensaapp.api.repositories.BestellungRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kapazität der Abholzeitfenster. Die Belegung pro Tag wird beim ersten Zugriff aus den
+ * gespeicherten Bestellungen gezählt und danach nur noch im Speicher über atomare Zähler
+ * pro Zeitfenster geführt. Dauerhaft sind allein die Bestellungen selbst; nach einem
+ * Neustart wird die Belegung wieder aus der Datenbank aufgebaut.
+ * Die Zähler gelten pro Instanz und setzen voraus, dass Bestellungen über eine Instanz laufen.
+ */
+@Service
+public class AbholSlotService {
+
+    @Autowired
+    private BestellungRepository bestellungRepository;
+
+    @Autowired
+    private AbholSlotKapazitaetRepository kapazitaetRepository;
+
+    @Value("${app.abholung.oeffnung:10:00}")
+    private String oeffnungProperty;
+
+    @Value("${app.abholung.schliessung:15:00}")
+    private String schliessungProperty;
+
+    @Value("${app.abholung.slot-dauer:15m}")
+    private Duration slotDauer;
+
+    @Value("${app.abholung.kapazitaet-pro-slot:40}")
+    private int kapazitaetProSlot;
+
+    private LocalTime oeffnung;
+    private LocalTime schliessung;
+    private int slotMinuten;
+    private int anzahlSlots;
+
+    private final ConcurrentHashMap<LocalDate, AbholSlotBelegung> belegungen = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        oeffnung = LocalTime.parse(oeffnungProperty);
+        schliessung = LocalTime.parse(schliessungProperty);
+        slotMinuten = (int) slotDauer.toMinutes();
+        if (slotMinuten <= 0 || !oeffnung.isBefore(schliessung)) {
+            throw new IllegalStateException("Ungültige Konfiguration der Abholzeitfenster");
+        }
+        anzahlSlots = (int) ((ChronoUnit.MINUTES.between(oeffnung, schliessung) + slotMinuten - 1) / slotMinuten);
+    }
+
+    /**
+     * Prüft ohne zu reservieren, ob die Abholzeit in einem Zeitfenster mit freien Plätzen liegt.
+     *
+     * @return Fehlermeldung oder null, wenn die Abholzeit möglich ist
+     */
+    public String pruefeAbholZeit(LocalDate datum, LocalTime abholZeit) {
+        int slot = slotIndex(abholZeit);
+        if (slot < 0) {
+            return ausserhalbMeldung();
+        }
+        AbholSlotBelegung belegung = belegung(datum);
+        if (belegung.getBelegt(slot) >= belegung.getKapazitaet(slot)) {
+            return ausgebuchtMeldung(slot);
+        }
+        return null;
+    }
+
+    /**
+     * Reserviert einen Platz im Zeitfenster der Abholzeit. Wird die laufende Transaktion
+     * zurückgerollt, wird der Platz wieder freigegeben.
+     */
+    public void reserviere(LocalDate datum, LocalTime abholZeit) {
+        int slot = slotIndex(abholZeit);
+        if (slot < 0) {
+            throw new RuntimeException(ausserhalbMeldung());
+        }
+        AbholSlotBelegung belegung = belegung(datum);
+        if (!belegung.reserviere(slot)) {
+            throw new RuntimeException(ausgebuchtMeldung(slot));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        belegung.gibFrei(slot);
+                    }
+                }
+            });
+        }
+    }
+
+    // Gibt den Platz einer stornierten Bestellung frei, sobald die Stornierung gespeichert ist
+    public void gibFrei(LocalDate datum, LocalTime abholZeit) {
+        int slot = slotIndex(abholZeit);
+        if (slot < 0) {
+            return;
+        }
+        nachCommit(() -> belegung(datum).gibFrei(slot));
+    }
+
+    // Belegt den Platz einer wieder aktivierten Bestellung ohne Kapazitätsprüfung
+    public void belege(LocalDate datum, LocalTime abholZeit) {
+        int slot = slotIndex(abholZeit);
+        if (slot < 0) {
+            return;
+        }
+        nachCommit(() -> belegung(datum).belege(slot));
+    }
+
+    /**
+     * Beginn und Ende des Zeitfensters, in das die Zeit fällt.
+     *
+     * @return [beginn, ende) oder null ausserhalb der Abholzeiten
+     */
+    public LocalTime[] slotGrenzen(LocalTime zeit) {
+        int slot = slotIndex(zeit);
+        return slot < 0 ? null : new LocalTime[]{slotBeginn(slot), slotEnde(slot)};
+    }
+
+    public List<AbholSlotResponse> getAbholSlots(LocalDate datum) {
+        AbholSlotBelegung belegung = belegung(datum);
+        List<AbholSlotResponse> slots = new ArrayList<>(anzahlSlots);
+        for (int slot = 0; slot < anzahlSlots; slot++) {
+            int kapazitaet = belegung.getKapazitaet(slot);
+            int belegt = belegung.getBelegt(slot);
+            slots.add(new AbholSlotResponse(slotBeginn(slot), slotEnde(slot), kapazitaet, belegt,
+                    Math.max(0, kapazitaet - belegt)));
+        }
+        return slots;
+    }
+
+    @Transactional
+    public AbholSlotResponse setzeKapazitaet(LocalDate datum, LocalTime slotBeginn, int kapazitaet) {
+        int slot = slotIndex(slotBeginn);
+        if (slot < 0 || !slotBeginn(slot).equals(slotBeginn)) {
+            throw new RuntimeException("Kein Abholzeitfenster beginnt um " + slotBeginn);
+        }
+
+        AbholSlotKapazitaet eintrag = kapazitaetRepository.findByDatumAndSlotBeginn(datum, slotBeginn)
+                .orElseGet(AbholSlotKapazitaet::new);
+        eintrag.setDatum(datum);
+        eintrag.setSlotBeginn(slotBeginn);
+        eintrag.setKapazitaet(kapazitaet);
+        kapazitaetRepository.save(eintrag);
+
+        AbholSlotBelegung belegung = belegung(datum);
+        nachCommit(() -> belegung.setKapazitaet(slot, kapazitaet));
+
+        int belegt = belegung.getBelegt(slot);
+        return new AbholSlotResponse(slotBeginn, slotEnde(slot), kapazitaet, belegt, Math.max(0, kapazitaet - belegt));
+    }
+
+    // Vergangene Tage werden nicht mehr bestellt; ihre Zähler werden verworfen
+    @Scheduled(cron = "${app.abholung.purge-cron:0 5 0 * * *}")
+    public void verwerfeVergangeneTage() {
+        LocalDate heute = LocalDate.now();
+        belegungen.keySet().removeIf(datum -> datum.isBefore(heute));
+    }
+
+    private AbholSlotBelegung belegung(LocalDate datum) {
+        AbholSlotBelegung belegung = belegungen.get(datum);
+        if (belegung != null) {
+            return belegung;
+        }
+        // Laden ausserhalb der Map: computeIfAbsent hielte während der Abfrage die Sperre des Hash-Bins
+        // und blockierte damit auch andere Tage im selben Bin. Laden zwei Threads gleichzeitig, gilt die
+        // zuerst eingetragene Belegung; reserviert wird nur auf der eingetragenen.
+        belegung = ladeBelegung(datum);
+        AbholSlotBelegung vorhanden = belegungen.putIfAbsent(datum, belegung);
+        return vorhanden != null ? vorhanden : belegung;
+    }
+
+    private AbholSlotBelegung ladeBelegung(LocalDate datum) {
+        int[] kapazitaet = new int[anzahlSlots];
+        Arrays.fill(kapazitaet, kapazitaetProSlot);
+        for (AbholSlotKapazitaet eintrag : kapazitaetRepository.findByDatum(datum)) {
+            int slot = slotIndex(eintrag.getSlotBeginn());
+            if (slot >= 0) {
+                kapazitaet[slot] = eintrag.getKapazitaet();
+            }
+        }
+
+        int[] belegt = new int[anzahlSlots];
+        for (Object[] row : bestellungRepository.countByAbholZeit(datum, BestellStatus.STORNIERT)) {
+            int slot = slotIndex((LocalTime) row[0]);
+            if (slot >= 0) {
+                belegt[slot] += ((Long) row[1]).intValue();
+            }
+        }
+        return new AbholSlotBelegung(kapazitaet, belegt);
+    }
+
+    private int slotIndex(LocalTime zeit) {
+        if (zeit == null || zeit.isBefore(oeffnung) || !zeit.isBefore(schliessung)) {
+            return -1;
+        }
+        return (int) (ChronoUnit.MINUTES.between(oeffnung, zeit) / slotMinuten);
+    }
+
+    private LocalTime slotBeginn(int slot) {
+        return oeffnung.plusMinutes((long) slot * slotMinuten);
+    }
+
+    private LocalTime slotEnde(int slot) {
+        LocalTime ende = slotBeginn(slot).plusMinutes(slotMinuten);
+        return ende.isAfter(schliessung) ? schliessung : ende;
+    }
+
+    private String ausserhalbMeldung() {
+        return "Abholungen sind nur zwischen " + oeffnung + " und " + schliessung + " Uhr möglich";
+    }
+
+    private String ausgebuchtMeldung(int slot) {
+        return "Das Abholzeitfenster " + slotBeginn(slot) + " - " + slotEnde(slot)
+                + " ist ausgebucht. Bitte wählen Sie eine andere Abholzeit";
+    }
+
+    private void nachCommit(Runnable aktion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aktion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                aktion.run();
+            }
+        });
+    }
+}
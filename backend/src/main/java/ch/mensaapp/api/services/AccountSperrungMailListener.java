@@ -0,0 +1,30 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.config.AsyncConfig;
+import ch.mensaapp.api.events.AccountGesperrtEvent;
+import ch.mensaapp.api.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Versendet die Info-Mail zur Account-Sperrung im Hintergrund, erst nachdem die Sperre
+ * committed ist. Der fehlgeschlagene Login wartet damit nicht auf den Mailserver.
+ */
+@Component
+public class AccountSperrungMailListener {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Async(AsyncConfig.MAIL_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountGesperrt(AccountGesperrtEvent event) {
+        userRepository.findByEmail(event.getEmail()).ifPresent(emailService::sendeAccountSperrungEmail);
+    }
+}
@@ -0,0 +1,186 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.exceptions.ServiceOverloadedException;
+import ch.mensaapp.api.payload.request.BestellungRequest;
+import ch.mensaapp.api.payload.response.BestellungResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optionale Bestellannahme für Lastspitzen: Bestellungen werden im Request-Thread validiert
+ * und dann von wenigen Writer-Threads gruppenweise in je einer Transaktion gespeichert. So
+ * belegen auch viele gleichzeitige Bestellungen nur so viele Datenbankverbindungen, wie es
+ * Writer gibt. Der Aufrufer erhält seine Bestellung erst, wenn seine Gruppe committet ist.
+ */
+@Service
+public class BestellAnnahmeService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BestellAnnahmeService.class);
+
+    @Autowired
+    private BestellungService bestellungService;
+
+    @Autowired
+    private AbholSlotService abholSlotService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.bestellung.annahme.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.bestellung.annahme.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.bestellung.annahme.max-gruppe:20}")
+    private int maxGruppe;
+
+    // Längste Zeit, die der erste Auftrag einer Gruppe auf weitere wartet
+    @Value("${app.bestellung.annahme.max-wartezeit:10ms}")
+    private Duration maxWartezeit;
+
+    @Value("${app.bestellung.annahme.writer-threads:2}")
+    private int writerThreads;
+
+    // Wird ein Auftrag so lange nicht übernommen, wird er verworfen und mit 503 beantwortet
+    @Value("${app.bestellung.annahme.antwort-timeout:10s}")
+    private Duration antwortTimeout;
+
+    private TransactionTemplate transactionTemplate;
+    private GruppenCommit<BestellValidierungsKontext, BestellungResponse> gruppenCommit;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (enabled) {
+            gruppenCommit = new GruppenCommit<>("bestell-annahme", queueCapacity, maxGruppe, maxWartezeit,
+                    writerThreads, this::speichereGruppe);
+            logger.info("Bestellannahme mit Gruppen-Commit aktiv: {} Writer, Gruppen bis {} Bestellungen, max. {} Wartezeit",
+                    writerThreads, maxGruppe, maxWartezeit);
+        }
+    }
+
+    @PreDestroy
+    void stoppe() throws InterruptedException {
+        if (gruppenCommit != null) {
+            gruppenCommit.stoppe(Duration.ofSeconds(10));
+        }
+    }
+
+    public BestellungResponse erstelleBestellung(BestellungRequest bestellungRequest, Long userId) {
+        if (gruppenCommit == null) {
+            return bestellungService.erstelleBestellung(bestellungRequest, userId);
+        }
+
+        // Open-Session-in-View: Der EntityManager des Requests hielte die Verbindung aus der Validierung,
+        // bis die Antwort geschrieben ist, also auch, während der Aufrufer auf seine Gruppe wartet. Die
+        // Writer bekämen dann keine Verbindung mehr. Ohne ihn öffnet die Validierung einen eigenen
+        // EntityManager, der die Verbindung mit dem Ende der Transaktion zurückgibt.
+        Object requestEntityManager = TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+        try {
+            return nimmAn(bestellungRequest, userId);
+        } finally {
+            if (requestEntityManager != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+            }
+        }
+    }
+
+    private BestellungResponse nimmAn(BestellungRequest bestellungRequest, Long userId) {
+        // Validierungsfehler erhält der Aufrufer sofort, ohne die Warteschlange zu belegen
+        BestellValidierungsKontext kontext = bestellungService.validiereBestellung(bestellungRequest, userId);
+        GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse> auftrag = gruppenCommit.anbieten(kontext);
+        if (auftrag == null) {
+            throw new ServiceOverloadedException("Es gehen gerade sehr viele Bestellungen ein. Bitte versuchen Sie es gleich erneut.", 1);
+        }
+        try {
+            return auftrag.warte(antwortTimeout);
+        } catch (TimeoutException e) {
+            throw new ServiceOverloadedException("Die Bestellung konnte nicht rechtzeitig angenommen werden. Bitte versuchen Sie es erneut.", 1);
+        }
+    }
+
+    private void speichereGruppe(List<GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse>> gruppe) {
+        try {
+            Map<GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse>, BestellungResponse> ergebnisse =
+                    transactionTemplate.execute(status -> speichere(gruppe));
+            // Erst nach dem Commit bestätigen
+            ergebnisse.forEach(GruppenCommit.Auftrag::erfuelle);
+        } catch (RuntimeException e) {
+            // Die Gruppe ist zurückgerollt: einzeln wiederholen, damit ein Fehler nur die betroffene Bestellung trifft
+            logger.warn("Gruppen-Commit von {} Bestellungen fehlgeschlagen, speichere einzeln: {}", gruppe.size(), e.getMessage());
+            for (GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse> auftrag : gruppe) {
+                if (auftrag.isErledigt()) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.execute(status -> speichere(List.of(auftrag))).forEach(GruppenCommit.Auftrag::erfuelle);
+                } catch (RuntimeException einzelFehler) {
+                    auftrag.scheitere(einzelFehler);
+                }
+            }
+        }
+    }
+
+    // Ein ausgebuchtes Zeitfenster betrifft nur diese Bestellung und ändert nichts an der Datenbank
+    private Map<GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse>, BestellungResponse> speichere(
+            List<GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse>> auftraege) {
+        List<GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse>> reserviert = new ArrayList<>(auftraege.size());
+        for (GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse> auftrag : auftraege) {
+            BestellValidierungsKontext kontext = auftrag.getDaten();
+            try {
+                abholSlotService.reserviere(kontext.getAbholDatum(), kontext.getRequest().getAbholZeit());
+                reserviert.add(auftrag);
+            } catch (RuntimeException e) {
+                auftrag.scheitere(e);
+            }
+        }
+
+        Map<GruppenCommit.Auftrag<BestellValidierungsKontext, BestellungResponse>, BestellungResponse> ergebnisse = new LinkedHashMap<>();
+        if (reserviert.isEmpty()) {
+            return ergebnisse;
+        }
+        List<BestellungResponse> gespeichert = bestellungService.speichereBestellungen(
+                reserviert.stream().map(GruppenCommit.Auftrag::getDaten).toList());
+        for (int i = 0; i < reserviert.size(); i++) {
+            ergebnisse.put(reserviert.get(i), gespeichert.get(i));
+        }
+        return ergebnisse;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bestellungen.annahme.wartend", this, service -> service.gruppenCommit == null ? 0 : service.gruppenCommit.getWartend())
+                .description("Bestellungen in der Warteschlange der Bestellannahme")
+                .register(registry);
+        FunctionCounter.builder("bestellungen.annahme.gruppen", this, service -> service.gruppenCommit == null ? 0 : service.gruppenCommit.getGruppen())
+                .description("Von der Bestellannahme committete Gruppen")
+                .register(registry);
+        FunctionCounter.builder("bestellungen.annahme.bestellungen", this, service -> service.gruppenCommit == null ? 0 : service.gruppenCommit.getAuftraege())
+                .description("Von der Bestellannahme verarbeitete Bestellungen")
+                .register(registry);
+    }
+}
@@ -0,0 +1,156 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.Gericht;
+import ch.mensaapp.api.payload.request.BestellPositionRequest;
+import ch.mensaapp.api.repositories.MenuplanRepository;
+import ch.mensaapp.api.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Validierung einer Bestellung als Folge von Schritten über einen gemeinsamen Kontext.
+ * Benutzer und Menüplan werden je einmal geladen; alle Verstösse werden gesammelt.
+ */
+@Component
+public class BestellValidierung {
+
+    private static final Logger logger = LoggerFactory.getLogger(BestellValidierung.class);
+
+    // Bestellungen für heute sind bis 30 Minuten vor der Abholzeit möglich
+    private static final int MINUTEN_VOR_ABHOLUNG = 30;
+
+    @FunctionalInterface
+    public interface Schritt {
+        void pruefe(BestellValidierungsKontext kontext);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MenuplanRepository menuplanRepository;
+
+    @Autowired
+    private AbholSlotService abholSlotService;
+
+    private final List<Schritt> schritte = List.of(
+            this::pruefeBenutzer,
+            this::pruefeAbholDatum,
+            this::pruefeAbholZeit,
+            this::pruefeMenuplan,
+            this::pruefePositionen,
+            this::pruefeGerichteVerfuegbar
+    );
+
+    public BestellValidierungsKontext validiere(BestellValidierungsKontext kontext) {
+        for (Schritt schritt : schritte) {
+            schritt.pruefe(kontext);
+        }
+        return kontext;
+    }
+
+    private void pruefeBenutzer(BestellValidierungsKontext kontext) {
+        userRepository.findById(kontext.getUserId()).ifPresentOrElse(
+                kontext::setUser,
+                () -> kontext.fehler("Benutzer nicht gefunden"));
+    }
+
+    private void pruefeAbholDatum(BestellValidierungsKontext kontext) {
+        LocalDate abholDatum = kontext.getAbholDatum();
+        if (abholDatum == null) {
+            kontext.fehler("Bitte wählen Sie ein Abholdatum");
+            return;
+        }
+        if (abholDatum.isBefore(kontext.getHeute())) {
+            kontext.fehler("Das Abholdatum kann nicht in der Vergangenheit liegen");
+            return;
+        }
+
+        LocalTime abholZeit = kontext.getRequest().getAbholZeit();
+        if (abholDatum.equals(kontext.getHeute()) && abholZeit != null
+                && abholZeit.isBefore(kontext.getJetzt().plusMinutes(MINUTEN_VOR_ABHOLUNG))) {
+            kontext.fehler("Bestellungen sind nur bis 30 Minuten vor der Abholzeit möglich");
+        }
+    }
+
+    // Nur eine Vorprüfung; verbindlich reserviert wird der Platz erst beim Erstellen der Bestellung
+    private void pruefeAbholZeit(BestellValidierungsKontext kontext) {
+        LocalTime abholZeit = kontext.getRequest().getAbholZeit();
+        if (abholZeit == null) {
+            kontext.fehler("Bitte wählen Sie eine Abholzeit");
+            return;
+        }
+        if (kontext.getAbholDatum() == null || kontext.getAbholDatum().isBefore(kontext.getHeute())) {
+            return;
+        }
+
+        String fehler = abholSlotService.pruefeAbholZeit(kontext.getAbholDatum(), abholZeit);
+        if (fehler != null) {
+            kontext.fehler(fehler);
+        }
+    }
+
+    private void pruefePositionen(BestellValidierungsKontext kontext) {
+        List<BestellPositionRequest> positionen = kontext.getRequest().getPositionen();
+        if (positionen == null || positionen.isEmpty()) {
+            kontext.fehler("Bestellung muss mindestens ein Gericht enthalten");
+            return;
+        }
+
+        List<BestellPositionRequest> gueltigePositionen = positionen.stream()
+                .filter(pos -> pos != null && pos.getGerichtId() != null && pos.getAnzahl() != null && pos.getAnzahl() > 0)
+                .collect(Collectors.toList());
+
+        if (gueltigePositionen.isEmpty()) {
+            kontext.fehler("Keine gültigen Gerichte in der Bestellung gefunden. Bitte überprüfen Sie Ihre Auswahl.");
+            return;
+        }
+
+        int entfernt = positionen.size() - gueltigePositionen.size();
+        if (entfernt > 0) {
+            logger.warn("{} ungültige Position(en) aus der Bestellung von Benutzer {} entfernt", entfernt, kontext.getUserId());
+        }
+        kontext.setGueltigePositionen(gueltigePositionen);
+    }
+
+    private void pruefeMenuplan(BestellValidierungsKontext kontext) {
+        if (kontext.getAbholDatum() == null) {
+            return;
+        }
+
+        menuplanRepository.findByDatum(kontext.getAbholDatum()).ifPresentOrElse(
+                menuplan -> {
+                    kontext.setMenuplan(menuplan);
+                    // Die Gerichte des Menüplans sind bereits geladen und dienen direkt als Nachschlagetabelle
+                    Map<Long, Gericht> verfuegbareGerichte = menuplan.getGerichte().stream()
+                            .collect(Collectors.toMap(Gericht::getId, Function.identity()));
+                    kontext.setVerfuegbareGerichte(Collections.unmodifiableMap(verfuegbareGerichte));
+                },
+                () -> kontext.fehler("Für das gewählte Datum ist kein Menüplan verfügbar"));
+    }
+
+    private void pruefeGerichteVerfuegbar(BestellValidierungsKontext kontext) {
+        if (kontext.getMenuplan() == null) {
+            return;
+        }
+
+        for (BestellPositionRequest position : kontext.getGueltigePositionen()) {
+            if (!kontext.getVerfuegbareGerichte().containsKey(position.getGerichtId())
+                    && !kontext.getNichtVerfuegbareGerichtIds().contains(position.getGerichtId())) {
+                kontext.getNichtVerfuegbareGerichtIds().add(position.getGerichtId());
+                kontext.fehler("Das Gericht mit ID " + position.getGerichtId() +
+                        " ist am " + kontext.getAbholDatum() + " nicht verfügbar");
+            }
+        }
+    }
+}
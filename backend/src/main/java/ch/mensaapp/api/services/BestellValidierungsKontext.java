@@ -0,0 +1,108 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.Gericht;
+import ch.mensaapp.api.models.Menuplan;
+import ch.mensaapp.api.models.User;
+import ch.mensaapp.api.payload.request.BestellPositionRequest;
+import ch.mensaapp.api.payload.request.BestellungRequest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gemeinsamer Zustand der Bestellvalidierung. Jeder Schritt lädt höchstens einmal,
+ * was er braucht, legt es hier ab und sammelt Verstösse, statt beim ersten abzubrechen.
+ * Nach erfolgreicher Validierung wird die Bestellung direkt aus diesem Kontext erstellt.
+ */
+public class BestellValidierungsKontext {
+    private final BestellungRequest request;
+    private final Long userId;
+    private final LocalDate heute;
+    private final LocalTime jetzt;
+
+    private User user;
+    private Menuplan menuplan;
+    private List<BestellPositionRequest> gueltigePositionen = Collections.emptyList();
+    private Map<Long, Gericht> verfuegbareGerichte = Collections.emptyMap();
+    private final List<Long> nichtVerfuegbareGerichtIds = new ArrayList<>();
+    private final List<String> fehler = new ArrayList<>();
+
+    public BestellValidierungsKontext(BestellungRequest request, Long userId, LocalDate heute, LocalTime jetzt) {
+        this.request = request;
+        this.userId = userId;
+        this.heute = heute;
+        this.jetzt = jetzt;
+    }
+
+    public void fehler(String meldung) {
+        fehler.add(meldung);
+    }
+
+    public boolean isGueltig() {
+        return fehler.isEmpty();
+    }
+
+    public BestellungRequest getRequest() {
+        return request;
+    }
+
+    public LocalDate getAbholDatum() {
+        return request.getAbholDatum();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getHeute() {
+        return heute;
+    }
+
+    public LocalTime getJetzt() {
+        return jetzt;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Menuplan getMenuplan() {
+        return menuplan;
+    }
+
+    public void setMenuplan(Menuplan menuplan) {
+        this.menuplan = menuplan;
+    }
+
+    public List<BestellPositionRequest> getGueltigePositionen() {
+        return gueltigePositionen;
+    }
+
+    public void setGueltigePositionen(List<BestellPositionRequest> gueltigePositionen) {
+        this.gueltigePositionen = gueltigePositionen;
+    }
+
+    public Map<Long, Gericht> getVerfuegbareGerichte() {
+        return verfuegbareGerichte;
+    }
+
+    public void setVerfuegbareGerichte(Map<Long, Gericht> verfuegbareGerichte) {
+        this.verfuegbareGerichte = verfuegbareGerichte;
+    }
+
+    public List<Long> getNichtVerfuegbareGerichtIds() {
+        return nichtVerfuegbareGerichtIds;
+    }
+
+    public List<String> getFehler() {
+        return fehler;
+    }
+}
@@ -0,0 +1,263 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.config.AsyncConfig;
+import ch.mensaapp.api.events.BestellungEvent;
+import ch.mensaapp.api.payload.response.BestellungResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verteilt Bestellereignisse per Server-Sent Events an Studierende (eigene Bestellungen)
+ * und an das Personal (optional nach Abholdatum gefiltert).
+ * <p>
+ * Offene Verbindungen belegen keinen Thread: Ereignisse werden pro Abonnent in eine
+ * Warteschlange gestellt und von einem kleinen, gemeinsamen Pool gesendet, jeweils höchstens
+ * ein Sendevorgang pro Abonnent. Wer zu weit zurückliegt, wird getrennt und holt die
+ * verpassten Ereignisse nach dem Wiederverbinden über Last-Event-ID aus dem Ringpuffer nach.
+ */
+@Service
+public class BestellungEventHub implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BestellungEventHub.class);
+
+    // Signalisiert dem Client, dass Ereignisse fehlen und er seine Liste neu laden muss
+    private static final String RESET_EVENT = "RESET";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier(AsyncConfig.SSE_EXECUTOR)
+    private Executor sseExecutor;
+
+    @Value("${app.sse.replay-buffer-size:1000}")
+    private int replayBufferSize;
+
+    @Value("${app.sse.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${app.sse.max-queued-events:100}")
+    private int maxQueuedEvents;
+
+    private final Set<Abonnent> abonnenten = ConcurrentHashMap.newKeySet();
+
+    // Ringpuffer und Sequenz werden nur unter der Sperre geändert, damit Replay und Live-Ereignisse lückenlos sind
+    private final Object sperre = new Object();
+    private Ereignis[] ringPuffer;
+    private long letzteId;
+
+    @PostConstruct
+    void init() {
+        ringPuffer = new Ereignis[replayBufferSize];
+    }
+
+    /**
+     * Öffnet einen Stream.
+     *
+     * @param userId      nur Bestellungen dieses Benutzers; null für alle
+     * @param abholDatum  nur Bestellungen mit diesem Abholdatum; null für alle
+     * @param lastEventId zuletzt empfangene Ereignis-ID des Clients oder null
+     */
+    public SseEmitter abonniere(Long userId, LocalDate abholDatum, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Abonnent abonnent = new Abonnent(emitter, userId, abholDatum);
+        emitter.onCompletion(() -> abonnenten.remove(abonnent));
+        emitter.onTimeout(() -> abonnenten.remove(abonnent));
+        emitter.onError(e -> abonnenten.remove(abonnent));
+
+        synchronized (sperre) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                spieleNach(abonnent, lastEventId);
+            }
+            abonnenten.add(abonnent);
+        }
+        // Sendet die Antwort-Header sofort, damit der Client die Verbindung als offen erkennt
+        abonnent.sende(Ereignis.HEARTBEAT);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void veroeffentliche(BestellungEvent event) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event.getBestellung());
+        } catch (JsonProcessingException e) {
+            logger.error("Bestellereignis konnte nicht serialisiert werden", e);
+            return;
+        }
+
+        synchronized (sperre) {
+            Ereignis ereignis = new Ereignis(++letzteId, event.getTyp().name(), event.getBestellung(), json);
+            ringPuffer[(int) (ereignis.id % ringPuffer.length)] = ereignis;
+            for (Abonnent abonnent : abonnenten) {
+                if (abonnent.interessiertAn(ereignis)) {
+                    abonnent.sende(ereignis);
+                }
+            }
+        }
+    }
+
+    // Hält Verbindungen über Proxies hinweg offen und erkennt getrennte Clients
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-interval:20000}")
+    public void sendeHeartbeat() {
+        for (Abonnent abonnent : abonnenten) {
+            abonnent.sende(Ereignis.HEARTBEAT);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bestellungen.sse.abonnenten", abonnenten, Set::size)
+                .description("Offene Server-Sent-Events-Verbindungen für Bestellungen")
+                .register(registry);
+    }
+
+    // Muss unter der Sperre aufgerufen werden
+    private void spieleNach(Abonnent abonnent, String lastEventId) {
+        long ab;
+        try {
+            ab = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            abonnent.sende(Ereignis.RESET);
+            return;
+        }
+
+        long aeltesteId = Math.max(1, letzteId - ringPuffer.length + 1);
+        // Zu alt für den Puffer oder aus der Zeit vor einem Neustart: der Client muss neu laden
+        if (ab > letzteId || ab + 1 < aeltesteId) {
+            abonnent.sende(Ereignis.RESET);
+            return;
+        }
+        for (long id = ab + 1; id <= letzteId; id++) {
+            Ereignis ereignis = ringPuffer[(int) (id % ringPuffer.length)];
+            if (abonnent.interessiertAn(ereignis)) {
+                abonnent.sende(ereignis);
+            }
+        }
+    }
+
+    private static final class Ereignis {
+        private static final Ereignis HEARTBEAT = new Ereignis(0, null, null, null);
+        private static final Ereignis RESET = new Ereignis(0, RESET_EVENT, null, "{}");
+
+        private final long id;
+        private final String typ;
+        private final BestellungResponse bestellung;
+        private final String json;
+
+        private Ereignis(long id, String typ, BestellungResponse bestellung, String json) {
+            this.id = id;
+            this.typ = typ;
+            this.bestellung = bestellung;
+            this.json = json;
+        }
+    }
+
+    private final class Abonnent {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final LocalDate abholDatum;
+        private final Queue<Ereignis> warteschlange = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger ausstehend = new AtomicInteger();
+        private final AtomicInteger offeneSendungen = new AtomicInteger();
+        private volatile boolean geschlossen;
+
+        private Abonnent(SseEmitter emitter, Long userId, LocalDate abholDatum) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.abholDatum = abholDatum;
+        }
+
+        private boolean interessiertAn(Ereignis ereignis) {
+            BestellungResponse bestellung = ereignis.bestellung;
+            return (userId == null || userId.equals(bestellung.getUserId()))
+                    && (abholDatum == null || abholDatum.equals(bestellung.getAbholDatum()));
+        }
+
+        private void sende(Ereignis ereignis) {
+            if (geschlossen) {
+                return;
+            }
+            // Ein langsamer Client darf den Hub nicht aufhalten; er verbindet sich neu und holt nach
+            if (ausstehend.incrementAndGet() > maxQueuedEvents) {
+                schliesse();
+                return;
+            }
+            warteschlange.add(ereignis);
+            if (offeneSendungen.getAndIncrement() == 0) {
+                sseExecutor.execute(this::leereWarteschlange);
+            }
+        }
+
+        private void leereWarteschlange() {
+            int verbleibend = 1;
+            while (true) {
+                Ereignis ereignis;
+                while ((ereignis = warteschlange.poll()) != null) {
+                    ausstehend.decrementAndGet();
+                    if (!geschlossen) {
+                        schreibe(ereignis);
+                    }
+                }
+                verbleibend = offeneSendungen.addAndGet(-verbleibend);
+                if (verbleibend == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void schreibe(Ereignis ereignis) {
+            try {
+                if (ereignis == Ereignis.HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (ereignis == Ereignis.RESET) {
+                    emitter.send(SseEmitter.event().name(ereignis.typ).data(ereignis.json, MediaType.APPLICATION_JSON));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(ereignis.id))
+                            .name(ereignis.typ)
+                            .data(ereignis.json, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client hat die Verbindung getrennt
+                geschlossen = true;
+                abonnenten.remove(this);
+            }
+        }
+
+        private void schliesse() {
+            geschlossen = true;
+            abonnenten.remove(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // bereits abgeschlossen
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.Bestellung;
+import ch.mensaapp.api.payload.response.BestellungExportZeile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Export der Bestellungen für die Buchhaltung als CSV oder NDJSON. Die Bestellungen werden
+ * über einen vorwärts gerichteten Cursor gelesen und direkt in den Response geschrieben;
+ * nach jedem Block wird der Persistence-Context geleert. Der Speicherbedarf hängt daher
+ * nur von der Blockgrösse ab, nicht vom exportierten Zeitraum.
+ */
+@Service
+public class BestellungExportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final char CSV_TRENNZEICHEN = ';';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        // Der Export läuft im Thread des StreamingResponseBody, ausserhalb der Request-Transaktion
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    public void exportiere(LocalDate von, LocalDate bis, Format format, OutputStream ausgabe) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(ausgabe, StandardCharsets.UTF_8));
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                schreibe(von, bis, format, writer);
+                writer.flush();
+            } catch (IOException e) {
+                // Meist hat der Client die Verbindung abgebrochen
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void schreibe(LocalDate von, LocalDate bis, Format format, Writer writer) throws IOException {
+        Session session = entityManager.unwrap(Session.class);
+
+        StringBuilder hql = new StringBuilder("SELECT b FROM Bestellung b JOIN FETCH b.user WHERE 1 = 1");
+        if (von != null) {
+            hql.append(" AND b.abholDatum >= :von");
+        }
+        if (bis != null) {
+            hql.append(" AND b.abholDatum <= :bis");
+        }
+        hql.append(" ORDER BY b.abholDatum, b.id");
+
+        Query<Bestellung> query = session.createQuery(hql.toString(), Bestellung.class);
+        if (von != null) {
+            query.setParameter("von", von);
+        }
+        if (bis != null) {
+            query.setParameter("bis", bis);
+        }
+
+        if (format == Format.CSV) {
+            schreibeCsvZeile(writer, BestellungExportZeile.SPALTEN);
+        }
+
+        try (ScrollableResults<Bestellung> bestellungen = query
+                .setReadOnly(true)
+                .setFetchSize(chunkSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            int imBlock = 0;
+            while (bestellungen.next()) {
+                BestellungExportZeile zeile = BestellungExportZeile.fromEntity(bestellungen.get());
+                if (format == Format.CSV) {
+                    schreibeCsvZeile(writer, zeile.werte());
+                } else {
+                    writer.write(objectMapper.writeValueAsString(zeile));
+                    writer.write('\n');
+                }
+
+                if (++imBlock == chunkSize) {
+                    // Block abschliessen: Daten an den Client, geladene Entities freigeben
+                    writer.flush();
+                    session.clear();
+                    imBlock = 0;
+                }
+            }
+        }
+    }
+
+    private void schreibeCsvZeile(Writer writer, Object[] werte) throws IOException {
+        for (int i = 0; i < werte.length; i++) {
+            if (i > 0) {
+                writer.write(CSV_TRENNZEICHEN);
+            }
+            if (werte[i] != null) {
+                writer.write(csvWert(werte[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private String csvWert(String wert) {
+        boolean quoten = wert.indexOf(CSV_TRENNZEICHEN) >= 0 || wert.indexOf('"') >= 0
+                || wert.indexOf('\n') >= 0 || wert.indexOf('\r') >= 0;
+        return quoten ? '"' + wert.replace("\"", "\"\"") + '"' : wert;
+    }
+}
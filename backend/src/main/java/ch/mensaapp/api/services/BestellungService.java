@@ -1,29 +1,44 @@
 package ch.mensaapp.api.services;
 
+import ch.mensaapp.api.events.BestellungEvent;
+import ch.mensaapp.api.exceptions.BadRequestException;
 import ch.mensaapp.api.models.*;
 import ch.mensaapp.api.payload.request.BestellPositionRequest;
+import ch.mensaapp.api.payload.request.BestellStatusBulkRequest;
+import ch.mensaapp.api.payload.request.BestellungFilterRequest;
 import ch.mensaapp.api.payload.request.BestellungRequest;
+import ch.mensaapp.api.payload.response.BestellStatusBulkResponse;
 import ch.mensaapp.api.payload.response.BestellungResponse;
+import ch.mensaapp.api.payload.response.BestellungSeiteResponse;
 import ch.mensaapp.api.payload.response.BestellungValidationResponse;
 import ch.mensaapp.api.repositories.BestellungRepository;
 import ch.mensaapp.api.repositories.GerichtRepository;
 import ch.mensaapp.api.repositories.MenuplanRepository;
 import ch.mensaapp.api.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class BestellungService {
+    private static final int MAX_SEITENGROESSE = 200;
+    private static final int MAX_SAMMEL_STATUSWECHSEL = 1000;
+
     @Autowired
     private BestellungRepository bestellungRepository;
 
@@ -37,94 +52,238 @@ public class BestellungService {
     private MenuplanRepository menuplanRepository;
 
     @Autowired
-    private GerichtService gerichtService;
+    private BestellValidierung bestellValidierung;
+
+    @Autowired
+    private AbholSlotService abholSlotService;
+
+    @Autowired
+    private ProduktionsService produktionsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Eine Seite der Bestellübersicht, absteigend nach Abholdatum und ID. Der Cursor hat die
+     * Form "abholDatum_id" und stammt aus der vorherigen Seite.
+     */
+    @Transactional(readOnly = true)
+    public BestellungSeiteResponse getBestellungenSeite(BestellungFilterRequest filter, String cursor, int groesse) {
+        int limit = Math.max(1, Math.min(groesse, MAX_SEITENGROESSE));
+        LocalDate nachAbholDatum = null;
+        Long nachId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                int trenner = cursor.indexOf('_');
+                nachAbholDatum = LocalDate.parse(cursor.substring(0, trenner));
+                nachId = Long.parseLong(cursor.substring(trenner + 1));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Ungültiger Cursor: " + cursor);
+            }
+        }
+
+        // Eine Zeile mehr laden, um zu erkennen, ob es eine weitere Seite gibt
+        List<Long> ids = bestellungRepository.findSeitenIds(filter, nachAbholDatum, nachId, limit + 1);
+        boolean weitere = ids.size() > limit;
+        if (weitere) {
+            ids = ids.subList(0, limit);
+        }
+        if (ids.isEmpty()) {
+            return new BestellungSeiteResponse(List.of(), null);
+        }
 
-    public List<BestellungResponse> getAlleBestellungen() {
-        return bestellungRepository.findAll().stream()
+        Map<Long, Bestellung> bestellungen = bestellungRepository.findMitDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Bestellung::getId, Function.identity()));
+        List<BestellungResponse> seite = ids.stream()
+                .map(bestellungen::get)
                 .map(BestellungResponse::fromEntity)
                 .collect(Collectors.toList());
+
+        BestellungResponse letzte = seite.get(seite.size() - 1);
+        String naechsterCursor = weitere ? letzte.getAbholDatum() + "_" + letzte.getId() : null;
+        return new BestellungSeiteResponse(seite, naechsterCursor);
     }
 
+    @Transactional(readOnly = true)
     public List<BestellungResponse> getBestellungenByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Benutzer nicht gefunden"));
-        
-        return bestellungRepository.findByUser(user).stream()
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Benutzer nicht gefunden");
+        }
+
+        return bestellungRepository.findMitDetailsByUserId(userId).stream()
                 .map(BestellungResponse::fromEntity)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<BestellungResponse> getBestellungenByAbholDatum(LocalDate abholDatum) {
-        return bestellungRepository.findByAbholDatum(abholDatum).stream()
+        return bestellungRepository.findMitDetailsByAbholDatum(abholDatum).stream()
                 .map(BestellungResponse::fromEntity)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public BestellungResponse getBestellungById(Long id) {
-        return BestellungResponse.fromEntity(bestellungRepository.findById(id)
+        return BestellungResponse.fromEntity(bestellungRepository.findMitDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Bestellung nicht gefunden")));
     }
 
     @Transactional
     public BestellungResponse erstelleBestellung(BestellungRequest bestellungRequest, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Benutzer nicht gefunden"));
+        return erstelleBestellung(validiereBestellung(bestellungRequest, userId));
+    }
 
-        // Validation 1: Check if pickup date is not in the past
-        LocalDate abholDatum = bestellungRequest.getAbholDatum();
-        if (abholDatum.isBefore(LocalDate.now())) {
-            throw new RuntimeException("Das Abholdatum kann nicht in der Vergangenheit liegen");
+    /**
+     * Validiert eine Bestellung, ohne sie zu speichern. Der Kontext kann später mit
+     * {@link #speichereBestellungen} gespeichert werden.
+     */
+    @Transactional(readOnly = true)
+    public BestellValidierungsKontext validiereBestellung(BestellungRequest bestellungRequest, Long userId) {
+        BestellValidierungsKontext kontext = bestellValidierung.validiere(neuerKontext(bestellungRequest, userId));
+        if (!kontext.isGueltig()) {
+            throw new RuntimeException(kontext.getFehler().get(0));
         }
+        return kontext;
+    }
+
+    @Transactional
+    public BestellungValidationResponse erstelleBestellungMitValidation(BestellungRequest bestellungRequest, Long userId) {
+        BestellungValidationResponse response = new BestellungValidationResponse();
+        
+        try {
+            BestellValidierungsKontext kontext = bestellValidierung.validiere(neuerKontext(bestellungRequest, userId));
 
-        // Validation 2: Check if pickup time has not passed for today
-        if (abholDatum.equals(LocalDate.now())) {
-            LocalTime abholZeit = bestellungRequest.getAbholZeit();
-            LocalTime currentTime = LocalTime.now();
-            // Allow ordering until 30 minutes before pickup
-            if (abholZeit.isBefore(currentTime.plusMinutes(30))) {
-                throw new RuntimeException("Bestellungen sind nur bis 30 Minuten vor der Abholzeit möglich");
+            if (!kontext.isGueltig()) {
+                response.setErfolgreich(false);
+                response.setFehler(kontext.getFehler());
+                response.setNachricht(kontext.getFehler().size() == 1
+                        ? kontext.getFehler().get(0)
+                        : "Die Bestellung enthält mehrere Fehler. Siehe Details unten.");
+                setzeAlternativen(response, kontext);
+                return response;
             }
+
+            // All validations passed, create the order from the already loaded context
+            BestellungResponse bestellung = erstelleBestellung(kontext);
+            response.setErfolgreich(true);
+            response.setBestellung(bestellung);
+            response.setNachricht("Bestellung erfolgreich erstellt");
+
+        } catch (Exception e) {
+            response.setErfolgreich(false);
+            response.setNachricht("Fehler beim Erstellen der Bestellung: " + e.getMessage());
         }
 
-        // Validation 3: Check if menuplan exists for the pickup date
-        Menuplan menuplan = menuplanRepository.findByDatum(abholDatum)
-                .orElseThrow(() -> new RuntimeException("Für das gewählte Datum ist kein Menüplan verfügbar"));
+        return response;
+    }
+
+    private BestellValidierungsKontext neuerKontext(BestellungRequest bestellungRequest, Long userId) {
+        return new BestellValidierungsKontext(bestellungRequest, userId, LocalDate.now(), LocalTime.now());
+    }
 
-        // Validation 4: Validate and filter positions
-        if (bestellungRequest.getPositionen() == null || bestellungRequest.getPositionen().isEmpty()) {
-            throw new RuntimeException("Bestellung muss mindestens ein Gericht enthalten");
+    // Schlägt alternative Abholdaten vor: bei fehlendem Menüplan alle kommenden Daten, sonst die Daten der nicht verfügbaren Gerichte
+    private void setzeAlternativen(BestellungValidationResponse response, BestellValidierungsKontext kontext) {
+        if (kontext.getAbholDatum() != null && kontext.getMenuplan() == null) {
+            List<LocalDate> verfuegbareDaten = menuplanRepository.findDatenAb(kontext.getHeute());
+            response.setMoeglicheDaten(verfuegbareDaten);
+            if (!verfuegbareDaten.isEmpty()) {
+                response.setEmpfohlenesDatum(verfuegbareDaten.get(0));
+            }
+            return;
         }
 
-        List<BestellPositionRequest> validPositionen = bestellungRequest.getPositionen().stream()
-                .filter(pos -> pos != null && pos.getGerichtId() != null && pos.getAnzahl() != null && pos.getAnzahl() > 0)
-                .collect(Collectors.toList());
+        List<Long> gerichtIds = kontext.getNichtVerfuegbareGerichtIds();
+        if (gerichtIds.isEmpty()) {
+            return;
+        }
 
-        if (validPositionen.isEmpty()) {
-            throw new RuntimeException("Keine gültigen Gerichte in der Bestellung gefunden. Bitte überprüfen Sie Ihre Auswahl.");
+        Map<Long, List<LocalDate>> datenProGericht = new HashMap<>();
+        for (Object[] row : menuplanRepository.findMenuplanDatesForGerichte(gerichtIds, kontext.getHeute())) {
+            datenProGericht.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((LocalDate) row[1]);
         }
 
-        // Log filtered out items for debugging
-        int filteredCount = bestellungRequest.getPositionen().size() - validPositionen.size();
-        if (filteredCount > 0) {
-            System.out.println("Warnung: " + filteredCount + " ungültige Position(en) aus der Bestellung entfernt");
+        Map<Long, Gericht> gerichte = gerichtRepository.findAllById(gerichtIds).stream()
+                .collect(Collectors.toMap(Gericht::getId, Function.identity()));
+
+        List<BestellungValidationResponse.UnavailableProduct> unavailableProducts = new ArrayList<>();
+        for (Long gerichtId : gerichtIds) {
+            Gericht gericht = gerichte.get(gerichtId);
+            if (gericht != null) {
+                unavailableProducts.add(BestellungValidationResponse.UnavailableProduct.create(
+                        gericht.getId(), gericht.getName(), kontext.getAbholDatum(),
+                        datenProGericht.getOrDefault(gerichtId, List.of())));
+            }
+        }
+        response.setNichtverfuegbareProdukte(unavailableProducts);
+
+        // Find best alternative date
+        List<LocalDate> sortedAlternatives = datenProGericht.values().stream()
+                .flatMap(List::stream)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        response.setMoeglicheDaten(sortedAlternatives);
+        if (!sortedAlternatives.isEmpty()) {
+            response.setEmpfohlenesDatum(sortedAlternatives.get(0));
         }
+    }
 
-        Set<Long> verfuegbareGerichtIds = menuplan.getGerichte().stream()
-                .map(Gericht::getId)
-                .collect(Collectors.toSet());
+    private BestellungResponse erstelleBestellung(BestellValidierungsKontext kontext) {
+        // Platz im Abholzeitfenster atomar reservieren; bei einem Rollback wird er wieder freigegeben
+        abholSlotService.reserviere(kontext.getAbholDatum(), kontext.getRequest().getAbholZeit());
+        // Gleiche Transaktion wie die Validierung: Benutzer und Gerichte aus dem Kontext sind noch verwaltet
+        Bestellung gespeichert = bestellungRepository.save(
+                baueBestellung(kontext, kontext.getUser(), kontext.getVerfuegbareGerichte()));
+        produktionsService.erfasseBestellung(gespeichert);
+        return veroeffentliche(BestellungEvent.Typ.ERSTELLT, gespeichert);
+    }
 
-        for (BestellPositionRequest positionRequest : validPositionen) {
-            if (!verfuegbareGerichtIds.contains(positionRequest.getGerichtId())) {
-                throw new RuntimeException("Das Gericht mit ID " + positionRequest.getGerichtId() + 
-                    " ist am " + abholDatum + " nicht verfügbar");
+    /**
+     * Speichert validierte Bestellungen, z.B. eine Gruppe der Bestellannahme, in der laufenden
+     * Transaktion. Die Plätze im Abholzeitfenster müssen bereits reserviert sein. Die Validierung
+     * lief in einer anderen Transaktion, deshalb werden Benutzer und Gerichte für alle Bestellungen
+     * gemeinsam neu geladen statt die Entitäten aus dem Kontext weiterzuverwenden.
+     *
+     * @return die gespeicherten Bestellungen in der Reihenfolge der Kontexte
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<BestellungResponse> speichereBestellungen(List<BestellValidierungsKontext> kontexte) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> gerichtIds = new HashSet<>();
+        for (BestellValidierungsKontext kontext : kontexte) {
+            userIds.add(kontext.getUserId());
+            kontext.getGueltigePositionen().forEach(position -> gerichtIds.add(position.getGerichtId()));
+        }
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Gericht> gerichte = gerichtRepository.findAllById(gerichtIds).stream()
+                .collect(Collectors.toMap(Gericht::getId, Function.identity()));
+
+        List<Bestellung> bestellungen = new ArrayList<>(kontexte.size());
+        for (BestellValidierungsKontext kontext : kontexte) {
+            User user = users.get(kontext.getUserId());
+            if (user == null) {
+                throw new RuntimeException("Benutzer nicht gefunden");
             }
+            bestellungen.add(baueBestellung(kontext, user, gerichte));
         }
 
+        List<Bestellung> gespeichert = bestellungRepository.saveAll(bestellungen);
+        // Mengen der ganzen Gruppe auf einmal buchen, sortiert statt Bestellung für Bestellung
+        produktionsService.erfasseBestellungen(gespeichert);
+        return gespeichert.stream()
+                .map(bestellung -> veroeffentliche(BestellungEvent.Typ.ERSTELLT, bestellung))
+                .collect(Collectors.toList());
+    }
+
+    private Bestellung baueBestellung(BestellValidierungsKontext kontext, User user, Map<Long, Gericht> gerichte) {
+        BestellungRequest bestellungRequest = kontext.getRequest();
+
         Bestellung bestellung = new Bestellung();
         bestellung.setUser(user);
-        bestellung.setAbholDatum(abholDatum);
+        bestellung.setAbholDatum(kontext.getAbholDatum());
         bestellung.setAbholZeit(bestellungRequest.getAbholZeit());
-        bestellung.setBestellDatum(LocalDate.now());
+        bestellung.setBestellDatum(kontext.getHeute());
         bestellung.setBemerkungen(bestellungRequest.getBemerkungen());
         bestellung.setStatus(BestellStatus.NEU);
         bestellung.setZahlungsStatus(ZahlungsStatus.AUSSTEHEND);
@@ -132,9 +291,11 @@ public class BestellungService {
         List<BestellPosition> positionen = new ArrayList<>();
         BigDecimal gesamtPreis = BigDecimal.ZERO;
 
-        for (BestellPositionRequest positionRequest : validPositionen) {
-            Gericht gericht = gerichtRepository.findById(positionRequest.getGerichtId())
-                    .orElseThrow(() -> new RuntimeException("Gericht nicht gefunden: " + positionRequest.getGerichtId()));
+        for (BestellPositionRequest positionRequest : kontext.getGueltigePositionen()) {
+            Gericht gericht = gerichte.get(positionRequest.getGerichtId());
+            if (gericht == null) {
+                throw new RuntimeException("Gericht nicht gefunden");
+            }
 
             BestellPosition position = new BestellPosition();
             position.setBestellung(bestellung);
@@ -151,145 +312,149 @@ public class BestellungService {
 
         bestellung.setPositionen(positionen);
         bestellung.setGesamtPreis(gesamtPreis);
-
-        return BestellungResponse.fromEntity(bestellungRepository.save(bestellung));
+        return bestellung;
     }
 
     @Transactional
-    public BestellungValidationResponse erstelleBestellungMitValidation(BestellungRequest bestellungRequest, Long userId) {
-        BestellungValidationResponse response = new BestellungValidationResponse();
-        
-        try {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("Benutzer nicht gefunden"));
+    public BestellungResponse storniereBestellung(Long id, Long userId) {
+        Bestellung bestellung = bestellungRepository.findMitDetailsById(id)
+                .orElseThrow(() -> new RuntimeException("Bestellung nicht gefunden"));
 
-            LocalDate abholDatum = bestellungRequest.getAbholDatum();
-            
-            // Basic validations
-            if (abholDatum.isBefore(LocalDate.now())) {
-                response.setErfolgreich(false);
-                response.setNachricht("Das Abholdatum kann nicht in der Vergangenheit liegen");
-                return response;
-            }
+        // Prüfen, ob die Bestellung dem Benutzer gehört
+        if (!bestellung.getUser().getId().equals(userId)) {
+            throw new RuntimeException("Keine Berechtigung für diese Bestellung");
+        }
 
-            if (abholDatum.equals(LocalDate.now())) {
-                LocalTime abholZeit = bestellungRequest.getAbholZeit();
-                LocalTime currentTime = LocalTime.now();
-                if (abholZeit.isBefore(currentTime.plusMinutes(30))) {
-                    response.setErfolgreich(false);
-                    response.setNachricht("Bestellungen sind nur bis 30 Minuten vor der Abholzeit möglich");
-                    return response;
-                }
-            }
+        // Prüfen, ob die Bestellung bereits in Zubereitung ist
+        if (bestellung.getStatus() != BestellStatus.NEU) {
+            throw new RuntimeException("Bestellung kann nicht mehr storniert werden");
+        }
 
-            // Check if menuplan exists
-            Menuplan menuplan = menuplanRepository.findByDatum(abholDatum).orElse(null);
-            if (menuplan == null) {
-                response.setErfolgreich(false);
-                response.setNachricht("Für das gewählte Datum ist kein Menüplan verfügbar");
-                
-                // Suggest alternative dates
-                List<LocalDate> verfuegbareDaten = menuplanRepository.findAll().stream()
-                        .filter(mp -> !mp.getDatum().isBefore(LocalDate.now()))
-                        .map(Menuplan::getDatum)
-                        .sorted()
-                        .collect(Collectors.toList());
-                response.setMoeglicheDaten(verfuegbareDaten);
-                if (!verfuegbareDaten.isEmpty()) {
-                    response.setEmpfohlenesDatum(verfuegbareDaten.get(0));
-                }
-                return response;
-            }
+        produktionsService.erfasseStatuswechsel(bestellung, bestellung.getStatus(), BestellStatus.STORNIERT);
+        bestellung.setStatus(BestellStatus.STORNIERT);
+        bestellung.setZahlungsStatus(ZahlungsStatus.STORNIERT);
+        abholSlotService.gibFrei(bestellung.getAbholDatum(), bestellung.getAbholZeit());
 
-            // Filter valid positions
-            List<BestellPositionRequest> validPositionen = bestellungRequest.getPositionen().stream()
-                    .filter(pos -> pos != null && pos.getGerichtId() != null && pos.getAnzahl() != null && pos.getAnzahl() > 0)
-                    .collect(Collectors.toList());
+        return veroeffentliche(BestellungEvent.Typ.STATUS_GEAENDERT, bestellungRepository.save(bestellung));
+    }
 
-            if (validPositionen.isEmpty()) {
-                response.setErfolgreich(false);
-                response.setNachricht("Keine gültigen Gerichte in der Bestellung gefunden");
-                return response;
-            }
+    /**
+     * Setzt den Status mehrerer Bestellungen in einem Statement. Geändert werden nur Bestellungen,
+     * deren aktueller Status den Übergang erlaubt; für jede Bestellung wird der Ausgang gemeldet.
+     */
+    @Transactional
+    public BestellStatusBulkResponse updateBestellungStatus(BestellStatusBulkRequest request) {
+        BestellStatus zielStatus = request.getZielStatus();
+        Set<BestellStatus> vorgaenger = BestellStatus.vorgaengerVon(zielStatus);
+        List<Long> ids = kandidatenFuerStatuswechsel(request, vorgaenger);
+        if (ids.size() > MAX_SAMMEL_STATUSWECHSEL) {
+            throw new RuntimeException("Es können höchstens " + MAX_SAMMEL_STATUSWECHSEL + " Bestellungen auf einmal geändert werden");
+        }
 
-            // Check dish availability and collect unavailable products
-            Set<Long> verfuegbareGerichtIds = menuplan.getGerichte().stream()
-                    .map(Gericht::getId)
-                    .collect(Collectors.toSet());
-
-            List<BestellungValidationResponse.UnavailableProduct> unavailableProducts = new ArrayList<>();
-
-            for (BestellPositionRequest positionRequest : validPositionen) {
-                if (!verfuegbareGerichtIds.contains(positionRequest.getGerichtId())) {
-                    Gericht gericht = gerichtRepository.findById(positionRequest.getGerichtId()).orElse(null);
-                    if (gericht != null) {
-                        List<LocalDate> verfuegbareDaten = gerichtService.getVerfuegbareDatenFuerGericht(positionRequest.getGerichtId());
-                        unavailableProducts.add(BestellungValidationResponse.UnavailableProduct.create(
-                                gericht.getId(), gericht.getName(), abholDatum, verfuegbareDaten));
-                    }
-                }
+        Map<Long, BestellStatus> alterStatus = new HashMap<>();
+        Map<Long, LocalDate> abholDaten = new HashMap<>();
+        Map<Long, LocalTime> abholZeiten = new HashMap<>();
+        if (!ids.isEmpty() && !vorgaenger.isEmpty()) {
+            List<String> von = vorgaenger.stream().map(Enum::name).collect(Collectors.toList());
+            for (Object[] row : bestellungRepository.updateStatus(ids, von, zielStatus.name())) {
+                Long id = ((Number) row[0]).longValue();
+                alterStatus.put(id, BestellStatus.valueOf((String) row[1]));
+                abholDaten.put(id, row[2] instanceof java.sql.Date datum ? datum.toLocalDate() : (LocalDate) row[2]);
+                abholZeiten.put(id, row[3] instanceof java.sql.Time zeit ? zeit.toLocalTime() : (LocalTime) row[3]);
             }
+        }
 
-            if (!unavailableProducts.isEmpty()) {
-                response.setErfolgreich(false);
-                response.setNichtverfuegbareProdukte(unavailableProducts);
-                response.setNachricht("Einige Gerichte sind am gewählten Datum nicht verfügbar. Siehe Details unten.");
-                
-                // Find best alternative date
-                Set<LocalDate> allAlternatives = unavailableProducts.stream()
-                        .flatMap(p -> p.getVerfuegbareDaten().stream())
-                        .collect(Collectors.toSet());
-                
-                List<LocalDate> sortedAlternatives = allAlternatives.stream().sorted().collect(Collectors.toList());
-                response.setMoeglicheDaten(sortedAlternatives);
-                if (!sortedAlternatives.isEmpty()) {
-                    response.setEmpfohlenesDatum(sortedAlternatives.get(0));
-                }
-                
-                return response;
-            }
+        produktionsService.erfasseStatuswechsel(alterStatus, abholDaten, zielStatus);
+        if (zielStatus == BestellStatus.STORNIERT) {
+            alterStatus.keySet().forEach(id -> abholSlotService.gibFrei(abholDaten.get(id), abholZeiten.get(id)));
+        }
+        if (!alterStatus.isEmpty()) {
+            bestellungRepository.findMitDetailsByIdIn(alterStatus.keySet())
+                    .forEach(bestellung -> veroeffentliche(BestellungEvent.Typ.STATUS_GEAENDERT, bestellung));
+        }
 
-            // All validations passed, create the order
-            BestellungResponse bestellung = erstelleBestellung(bestellungRequest, userId);
-            response.setErfolgreich(true);
-            response.setBestellung(bestellung);
-            response.setNachricht("Bestellung erfolgreich erstellt");
+        // Für nicht geänderte Bestellungen den aktuellen Status nachschlagen, um den Grund zu melden
+        List<Long> unveraendert = ids.stream().filter(id -> !alterStatus.containsKey(id)).collect(Collectors.toList());
+        Map<Long, BestellStatus> aktuellerStatus = new HashMap<>();
+        if (!unveraendert.isEmpty()) {
+            for (Object[] row : bestellungRepository.findStatusByIdIn(unveraendert)) {
+                aktuellerStatus.put((Long) row[0], (BestellStatus) row[1]);
+            }
+        }
 
-        } catch (Exception e) {
-            response.setErfolgreich(false);
-            response.setNachricht("Fehler beim Erstellen der Bestellung: " + e.getMessage());
+        List<BestellStatusBulkResponse.Ergebnis> ergebnisse = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BestellStatus status = aktuellerStatus.get(id);
+            if (alterStatus.containsKey(id)) {
+                ergebnisse.add(BestellStatusBulkResponse.Ergebnis.create(id,
+                        BestellStatusBulkResponse.Ausgang.AKTUALISIERT, zielStatus, null));
+            } else if (status == null) {
+                ergebnisse.add(BestellStatusBulkResponse.Ergebnis.create(id,
+                        BestellStatusBulkResponse.Ausgang.NICHT_GEFUNDEN, null, "Bestellung nicht gefunden"));
+            } else if (status == zielStatus) {
+                ergebnisse.add(BestellStatusBulkResponse.Ergebnis.create(id,
+                        BestellStatusBulkResponse.Ausgang.UNVERAENDERT, status, "Bestellung hat bereits den Status " + status));
+            } else {
+                ergebnisse.add(BestellStatusBulkResponse.Ergebnis.create(id,
+                        BestellStatusBulkResponse.Ausgang.UNGUELTIGER_UEBERGANG, status,
+                        "Statuswechsel von " + status + " nach " + zielStatus + " ist nicht erlaubt"));
+            }
         }
 
+        BestellStatusBulkResponse response = new BestellStatusBulkResponse();
+        response.setAktualisiert(alterStatus.size());
+        response.setErgebnisse(ergebnisse);
         return response;
     }
 
-    @Transactional
-    public BestellungResponse storniereBestellung(Long id, Long userId) {
-        Bestellung bestellung = bestellungRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Bestellung nicht gefunden"));
-
-        // Prüfen, ob die Bestellung dem Benutzer gehört
-        if (!bestellung.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Keine Berechtigung für diese Bestellung");
+    private List<Long> kandidatenFuerStatuswechsel(BestellStatusBulkRequest request, Set<BestellStatus> vorgaenger) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            return new ArrayList<>(new LinkedHashSet<>(request.getIds()));
         }
-
-        // Prüfen, ob die Bestellung bereits in Zubereitung ist
-        if (bestellung.getStatus() != BestellStatus.NEU) {
-            throw new RuntimeException("Bestellung kann nicht mehr storniert werden");
+        if (request.getAbholDatum() == null) {
+            throw new RuntimeException("Bitte Bestell-IDs oder ein Abholdatum angeben");
         }
 
-        bestellung.setStatus(BestellStatus.STORNIERT);
-        bestellung.setZahlungsStatus(ZahlungsStatus.STORNIERT);
+        // Ohne Statusfilter kommen nur Bestellungen in Frage, die in den Zielstatus wechseln dürfen
+        Set<BestellStatus> status = request.getStatus() != null ? Set.of(request.getStatus()) : vorgaenger;
+        if (status.isEmpty()) {
+            return List.of();
+        }
 
-        return BestellungResponse.fromEntity(bestellungRepository.save(bestellung));
+        LocalTime von = LocalTime.MIN;
+        LocalTime bis = LocalTime.MAX;
+        if (request.getAbholZeit() != null) {
+            LocalTime[] slot = abholSlotService.slotGrenzen(request.getAbholZeit());
+            if (slot == null) {
+                throw new RuntimeException("Die Abholzeit " + request.getAbholZeit() + " liegt ausserhalb der Abholzeiten");
+            }
+            von = slot[0];
+            bis = slot[1];
+        }
+        return bestellungRepository.findIdsFuerStatuswechsel(request.getAbholDatum(), von, bis, status);
     }
 
     @Transactional
     public BestellungResponse updateBestellungStatus(Long id, BestellStatus status) {
-        Bestellung bestellung = bestellungRepository.findById(id)
+        Bestellung bestellung = bestellungRepository.findMitDetailsById(id)
                 .orElseThrow(() -> new RuntimeException("Bestellung nicht gefunden"));
 
+        // Stornierte Bestellungen belegen kein Abholzeitfenster
+        if (status == BestellStatus.STORNIERT && bestellung.getStatus() != BestellStatus.STORNIERT) {
+            abholSlotService.gibFrei(bestellung.getAbholDatum(), bestellung.getAbholZeit());
+        } else if (status != BestellStatus.STORNIERT && bestellung.getStatus() == BestellStatus.STORNIERT) {
+            abholSlotService.belege(bestellung.getAbholDatum(), bestellung.getAbholZeit());
+        }
+
+        produktionsService.erfasseStatuswechsel(bestellung, bestellung.getStatus(), status);
         bestellung.setStatus(status);
-        return BestellungResponse.fromEntity(bestellungRepository.save(bestellung));
+        return veroeffentliche(BestellungEvent.Typ.STATUS_GEAENDERT, bestellungRepository.save(bestellung));
+    }
+
+    // Live-Clients werden erst nach dem Commit benachrichtigt
+    private BestellungResponse veroeffentliche(BestellungEvent.Typ typ, Bestellung bestellung) {
+        BestellungResponse response = BestellungResponse.fromEntity(bestellung);
+        eventPublisher.publishEvent(new BestellungEvent(typ, response));
+        return response;
     }
 }
@@ -1,68 +1,132 @@
 package ch.mensaapp.api.services;
+import ch.mensaapp.api.events.AccountGesperrtEvent;
 import ch.mensaapp.api.models.User;
 import ch.mensaapp.api.repositories.UserRepository;
+import ch.mensaapp.api.security.SlidingWindowCounter;
+import ch.mensaapp.api.security.UserDetailsCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.Date;
-import java.util.Optional;
 
+/**
+ * Fehlversuche werden nur im Speicher gezählt (gleitendes Fenster pro E-Mail und pro IP).
+ * In die Datenbank geschrieben werden ausschliesslich Sperrung und Entsperrung; abgelaufene
+ * Sperren hebt ein periodischer Sweeper gesammelt auf.
+ */
 @Service
-@Transactional
 public class BruteForceProtectionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(BruteForceProtectionService.class);
+
     private static final int MAX_FAILED_ATTEMPTS = 3;
-    private static final long LOCK_TIME_DURATION = 10 * 60 * 1000; // 10 Minuten
+    private static final int WINDOW_BUCKETS = 10;
 
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private EmailService emailService;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Value("${app.security.lock-duration:10m}")
+    private Duration lockDuration;
+
+    // Zeitraum, in dem Fehlversuche zusammengezählt werden
+    @Value("${app.security.brute-force.window:10m}")
+    private Duration failureWindow;
+
+    // Fehlversuche pro IP im Fenster, ab denen weitere Anmeldungen von dieser IP abgewiesen werden
+    @Value("${app.security.brute-force.max-failed-attempts-per-ip:50}")
+    private int maxFailedAttemptsPerIp;
+
+    private SlidingWindowCounter emailFailures;
+    private SlidingWindowCounter ipFailures;
+
+    @PostConstruct
+    void init() {
+        emailFailures = new SlidingWindowCounter(failureWindow, WINDOW_BUCKETS);
+        ipFailures = new SlidingWindowCounter(failureWindow, WINDOW_BUCKETS);
+    }
 
     public void registerFailedAttempt(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            int newFailAttempts = user.getFailedAttempt() + 1;
-            user.setFailedAttempt(newFailAttempts);
-
-            if (newFailAttempts >= MAX_FAILED_ATTEMPTS) {
-                user.setAccountNonLocked(false);
-                user.setLockTime(new Date());
-
-                // Info-Mail senden wie in User Story gefordert
-                emailService.sendeAccountSperrungEmail(user);
-                System.out.println("Account gesperrt für: " + email + " nach " + newFailAttempts + " Fehlversuchen");
-            }
-
-            userRepository.save(user);
+        registerFailedAttempt(email, null);
+    }
+
+    public void registerFailedAttempt(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        if (clientIp != null) {
+            ipFailures.increment(clientIp, now);
+        }
+        if (email == null) {
+            return;
         }
+
+        int failedAttempts = emailFailures.increment(email, now);
+        if (failedAttempts >= MAX_FAILED_ATTEMPTS) {
+            lockAccount(email, failedAttempts);
+        }
+    }
+
+    private void lockAccount(String email, int failedAttempts) {
+        // Der Zähler beginnt nach der Sperrung von vorne; weitere Versuche scheitern ohnehin an der Sperre
+        emailFailures.reset(email);
+
+        // Nur der erste Aufruf, der die Sperre setzt, verschickt die Info-Mail
+        long now = System.currentTimeMillis();
+        if (userRepository.lockAccount(email, failedAttempts, new Date(now), new Date(now - lockDuration.toMillis())) == 0) {
+            return;
+        }
+        userDetailsCache.evict(email);
+
+        // Info-Mail wie in User Story gefordert; Versand erfolgt asynchron nach dem Commit
+        eventPublisher.publishEvent(new AccountGesperrtEvent(email, failedAttempts));
+        logger.warn("Account gesperrt für {} nach {} Fehlversuchen", email, failedAttempts);
     }
 
     public void resetFailedAttempts(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            user.setFailedAttempt(0);
-            userRepository.save(user);
+        emailFailures.reset(email);
+    }
+
+    public boolean isIpBlocked(String clientIp) {
+        return clientIp != null
+                && ipFailures.count(clientIp, System.currentTimeMillis()) >= maxFailedAttemptsPerIp;
+    }
+
+    /**
+     * Prüft die Sperre ohne Schreibzugriff. Eine abgelaufene Sperre gilt sofort als
+     * aufgehoben, auch wenn der Sweeper die Zeile noch nicht entsperrt hat.
+     */
+    public boolean isLocked(User user) {
+        if (user.isAccountNonLocked()) {
+            return false;
         }
+        // Ohne Sperrzeitpunkt bleibt der Account gesperrt, bis er manuell entsperrt wird
+        return user.getLockTime() == null
+                || user.getLockTime().getTime() + lockDuration.toMillis() > System.currentTimeMillis();
     }
 
-    public boolean unlockWhenTimeExpired(User user) {
-        if (user.getLockTime() != null) {
-            long lockTimeInMillis = user.getLockTime().getTime();
-            long currentTimeInMillis = System.currentTimeMillis();
-
-            if (lockTimeInMillis + LOCK_TIME_DURATION < currentTimeInMillis) {
-                user.setAccountNonLocked(true);
-                user.setLockTime(null);
-                user.setFailedAttempt(0);
-                userRepository.save(user);
-                return true;
-            }
+    @Scheduled(fixedDelayString = "${app.security.unlock-sweep-interval:30000}")
+    public void unlockExpiredAccounts() {
+        int unlocked = userRepository.unlockExpiredAccounts(new Date(System.currentTimeMillis() - lockDuration.toMillis()));
+        if (unlocked > 0) {
+            logger.info("{} abgelaufene Account-Sperre(n) aufgehoben", unlocked);
         }
-        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.brute-force.purge-interval:60000}")
+    public void purgeExpiredCounters() {
+        long now = System.currentTimeMillis();
+        emailFailures.purgeExpired(now);
+        ipFailures.purgeExpired(now);
     }
 }
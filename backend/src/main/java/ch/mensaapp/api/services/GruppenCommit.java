@@ -0,0 +1,204 @@
+package ch.mensaapp.api.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Begrenzte Warteschlange, aus der Writer-Threads Aufträge in Gruppen verarbeiten: Eine
+ * Gruppe wird geschlossen, sobald sie voll ist oder der erste Auftrag die maximale Wartezeit
+ * erreicht hat. Die Verarbeitung muss jeden Auftrag der Gruppe erfüllen oder scheitern lassen;
+ * Aufrufer warten synchron auf ihr Ergebnis.
+ *
+ * @param <A> Daten eines Auftrags
+ * @param <E> Ergebnis eines Auftrags
+ */
+public class GruppenCommit<A, E> {
+
+    private static final long LEERLAUF_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final BlockingQueue<Auftrag<A, E>> warteschlange;
+    private final int maxGruppe;
+    private final long maxWartezeitNanos;
+    private final Consumer<List<Auftrag<A, E>>> verarbeitung;
+    private final List<Thread> writer = new ArrayList<>();
+    private final AtomicLong gruppen = new AtomicLong();
+    private final AtomicLong auftraege = new AtomicLong();
+    private volatile boolean aktiv = true;
+
+    public GruppenCommit(String name, int kapazitaet, int maxGruppe, Duration maxWartezeit, int writerThreads,
+                         Consumer<List<Auftrag<A, E>>> verarbeitung) {
+        this.warteschlange = new ArrayBlockingQueue<>(kapazitaet);
+        this.maxGruppe = maxGruppe;
+        this.maxWartezeitNanos = maxWartezeit.toNanos();
+        this.verarbeitung = verarbeitung;
+        for (int i = 0; i < writerThreads; i++) {
+            Thread thread = new Thread(this::schreibe, name + "-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+            writer.add(thread);
+        }
+    }
+
+    /**
+     * Reiht einen Auftrag ein.
+     *
+     * @return null, wenn die Warteschlange voll ist oder nicht mehr angenommen wird
+     */
+    public Auftrag<A, E> anbieten(A daten) {
+        if (!aktiv) {
+            return null;
+        }
+        Auftrag<A, E> auftrag = new Auftrag<>(daten);
+        return warteschlange.offer(auftrag) ? auftrag : null;
+    }
+
+    public int getWartend() {
+        return warteschlange.size();
+    }
+
+    public long getGruppen() {
+        return gruppen.get();
+    }
+
+    public long getAuftraege() {
+        return auftraege.get();
+    }
+
+    /**
+     * Nimmt keine neuen Aufträge mehr an und wartet, bis die Writer die Warteschlange
+     * abgearbeitet haben.
+     */
+    public void stoppe(Duration timeout) throws InterruptedException {
+        aktiv = false;
+        long frist = System.nanoTime() + timeout.toNanos();
+        for (Thread thread : writer) {
+            long rest = frist - System.nanoTime();
+            if (rest > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(thread, rest);
+            }
+        }
+    }
+
+    private void schreibe() {
+        List<Auftrag<A, E>> gruppe = new ArrayList<>(maxGruppe);
+        while (aktiv || !warteschlange.isEmpty()) {
+            try {
+                Auftrag<A, E> erster = warteschlange.poll(LEERLAUF_NANOS, TimeUnit.NANOSECONDS);
+                if (erster == null) {
+                    continue;
+                }
+                gruppe.add(erster);
+
+                // Die Wartezeit zählt ab dem ersten Auftrag; was bereits ansteht, kommt ohne Warten dazu
+                long frist = System.nanoTime() + maxWartezeitNanos;
+                warteschlange.drainTo(gruppe, maxGruppe - gruppe.size());
+                while (gruppe.size() < maxGruppe) {
+                    long rest = frist - System.nanoTime();
+                    Auftrag<A, E> naechster = rest > 0 ? warteschlange.poll(rest, TimeUnit.NANOSECONDS) : null;
+                    if (naechster == null) {
+                        break;
+                    }
+                    gruppe.add(naechster);
+                    warteschlange.drainTo(gruppe, maxGruppe - gruppe.size());
+                }
+
+                verarbeite(gruppe);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                gruppe.forEach(auftrag -> auftrag.scheitere(new IllegalStateException("Verarbeitung abgebrochen")));
+                return;
+            } finally {
+                gruppe.clear();
+            }
+        }
+    }
+
+    private void verarbeite(List<Auftrag<A, E>> gruppe) {
+        // Aufträge, deren Aufrufer nicht mehr warten, werden nicht mehr verarbeitet
+        gruppe.removeIf(auftrag -> !auftrag.starte());
+        if (gruppe.isEmpty()) {
+            return;
+        }
+        try {
+            verarbeitung.accept(gruppe);
+        } catch (RuntimeException e) {
+            gruppe.forEach(auftrag -> auftrag.scheitere(e));
+        }
+        // Vergessene Aufträge dürfen ihre Aufrufer nicht endlos blockieren
+        gruppe.forEach(auftrag -> auftrag.scheitere(new IllegalStateException("Auftrag wurde nicht verarbeitet")));
+        gruppen.incrementAndGet();
+        auftraege.addAndGet(gruppe.size());
+    }
+
+    public static final class Auftrag<A, E> {
+        private static final int WARTEND = 0;
+        private static final int IN_ARBEIT = 1;
+        private static final int ABGEBROCHEN = 2;
+
+        private final A daten;
+        private final AtomicInteger zustand = new AtomicInteger(WARTEND);
+        private final CompletableFuture<E> ergebnis = new CompletableFuture<>();
+
+        private Auftrag(A daten) {
+            this.daten = daten;
+        }
+
+        public A getDaten() {
+            return daten;
+        }
+
+        public void erfuelle(E wert) {
+            ergebnis.complete(wert);
+        }
+
+        public void scheitere(RuntimeException fehler) {
+            ergebnis.completeExceptionally(fehler);
+        }
+
+        public boolean isErledigt() {
+            return ergebnis.isDone();
+        }
+
+        private boolean starte() {
+            return zustand.compareAndSet(WARTEND, IN_ARBEIT);
+        }
+
+        /**
+         * Wartet auf das Ergebnis. Läuft die Zeit ab, bevor ein Writer den Auftrag übernommen
+         * hat, wird er verworfen; ist er bereits in Arbeit, wird bis zum Ende der Gruppe gewartet,
+         * damit der Aufrufer nie über ein gespeichertes Ergebnis im Unklaren bleibt.
+         *
+         * @throws TimeoutException wenn der Auftrag verworfen wurde
+         */
+        public E warte(Duration timeout) throws TimeoutException {
+            try {
+                try {
+                    return ergebnis.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (zustand.compareAndSet(WARTEND, ABGEBROCHEN)) {
+                        throw e;
+                    }
+                    return ergebnis.get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException fehler) {
+                    throw fehler;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Warten auf die Verarbeitung unterbrochen", e);
+            }
+        }
+    }
+}
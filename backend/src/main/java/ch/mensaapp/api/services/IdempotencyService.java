@@ -0,0 +1,136 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.exceptions.IdempotencyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Führt schreibende Anfragen mit Idempotency-Key höchstens einmal aus. Wiederholungen
+ * mit demselben Key erhalten die ursprüngliche Antwort; gleichzeitige Duplikate warten
+ * auf die laufende Ausführung. Schlägt die Ausführung mit einer Exception fehl, wird der
+ * Key freigegeben, damit ein erneuter Versuch möglich ist.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${app.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    // Wie lange ein Duplikat auf die laufende Ausführung wartet
+    @Value("${app.idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    private Cache<String, Eintrag> eintraege;
+
+    @PostConstruct
+    void init() {
+        eintraege = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public <T> ResponseEntity<T> execute(String idempotencyKey, Long userId, String operation, Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyException("Idempotency-Key ist zu lang", HttpStatus.BAD_REQUEST);
+        }
+
+        // Keys gelten pro Benutzer und Operation, damit sich verschiedene Clients nicht in die Quere kommen
+        String cacheKey = userId + ":" + operation + ":" + idempotencyKey;
+        Eintrag eintrag = new Eintrag(fingerprint(request));
+        Eintrag vorhanden = eintraege.asMap().putIfAbsent(cacheKey, eintrag);
+
+        if (vorhanden != null) {
+            if (!MessageDigest.isEqual(vorhanden.fingerprint, eintrag.fingerprint)) {
+                throw new IdempotencyException(
+                        "Idempotency-Key wurde bereits für eine andere Anfrage verwendet", HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            return replay(awaitResult(vorhanden));
+        }
+
+        try {
+            ResponseEntity<T> result = action.get();
+            eintrag.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            eintraege.asMap().remove(cacheKey, eintrag);
+            eintrag.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private ResponseEntity<?> awaitResult(Eintrag eintrag) {
+        try {
+            return eintrag.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Das Duplikat erhält denselben Fehler wie die ursprüngliche Anfrage
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyException(
+                    "Die Anfrage mit diesem Idempotency-Key wird noch verarbeitet", HttpStatus.CONFLICT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warten auf die ursprüngliche Anfrage wurde unterbrochen", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(ResponseEntity<?> original) {
+        return (ResponseEntity<T>) ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Fingerprint der Anfrage konnte nicht berechnet werden", e);
+        }
+    }
+
+    private static final class Eintrag {
+        private final byte[] fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+
+        private Eintrag(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
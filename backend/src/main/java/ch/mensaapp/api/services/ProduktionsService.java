@@ -0,0 +1,171 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.BestellPosition;
+import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.models.Bestellung;
+import ch.mensaapp.api.models.ProduktionsMenge;
+import ch.mensaapp.api.payload.response.ProduktionsMengeResponse;
+import ch.mensaapp.api.repositories.ProduktionsMengeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Produktionsmengen pro Abholdatum, Gericht und Status. Die Mengen werden in derselben
+ * Transaktion wie die Bestellung per Upsert fortgeschrieben; gelesen wird eine Zeile
+ * pro Gericht und Status statt aller Bestellungen samt Positionen.
+ */
+@Service
+public class ProduktionsService {
+
+    @Autowired
+    private ProduktionsMengeRepository produktionsMengeRepository;
+
+    // Neue Bestellung: alle Positionen im Anfangsstatus erfassen
+    @Transactional
+    public void erfasseBestellung(Bestellung bestellung) {
+        erfasseBestellungen(List.of(bestellung));
+    }
+
+    /**
+     * Mehrere neue Bestellungen, z.B. eine Gruppe der Bestellannahme: Die Mengen aller
+     * Bestellungen werden zuerst zusammengefasst und dann mit einem Upsert pro (Datum, Gericht,
+     * Status) in fester Reihenfolge gebucht, damit sich gleichzeitige Writer nicht gegenseitig sperren.
+     */
+    @Transactional
+    public void erfasseBestellungen(List<Bestellung> bestellungen) {
+        Map<MengenSchluessel, Integer> deltas = new TreeMap<>();
+        for (Bestellung bestellung : bestellungen) {
+            for (BestellPosition position : bestellung.getPositionen()) {
+                deltas.merge(new MengenSchluessel(bestellung.getAbholDatum(), position.getGericht().getId(),
+                        bestellung.getStatus()), position.getAnzahl(), Integer::sum);
+            }
+        }
+        addiere(deltas);
+    }
+
+    // Statuswechsel (auch Stornierung): Mengen vom alten auf den neuen Status umbuchen
+    @Transactional
+    public void erfasseStatuswechsel(Bestellung bestellung, BestellStatus alterStatus, BestellStatus neuerStatus) {
+        if (alterStatus == neuerStatus) {
+            return;
+        }
+        Map<MengenSchluessel, Integer> deltas = new TreeMap<>();
+        for (BestellPosition position : bestellung.getPositionen()) {
+            Long gerichtId = position.getGericht().getId();
+            deltas.merge(new MengenSchluessel(bestellung.getAbholDatum(), gerichtId, alterStatus), -position.getAnzahl(), Integer::sum);
+            deltas.merge(new MengenSchluessel(bestellung.getAbholDatum(), gerichtId, neuerStatus), position.getAnzahl(), Integer::sum);
+        }
+        addiere(deltas);
+    }
+
+    /**
+     * Sammel-Statuswechsel: bucht die Mengen aller Bestellungen mit einer Abfrage und einem
+     * Upsert pro (Datum, Gericht, Status) um, unabhängig von der Anzahl Bestellungen.
+     *
+     * @param alterStatus Status vor dem Wechsel pro Bestellung
+     * @param abholDatum  Abholdatum pro Bestellung
+     */
+    @Transactional
+    public void erfasseStatuswechsel(Map<Long, BestellStatus> alterStatus, Map<Long, LocalDate> abholDatum,
+                                     BestellStatus neuerStatus) {
+        if (alterStatus.isEmpty()) {
+            return;
+        }
+
+        Map<MengenSchluessel, Integer> deltas = new TreeMap<>();
+        for (Object[] row : produktionsMengeRepository.sumMengenProBestellungUndGericht(alterStatus.keySet())) {
+            Long bestellungId = (Long) row[0];
+            Long gerichtId = (Long) row[1];
+            int anzahl = ((Number) row[2]).intValue();
+            LocalDate datum = abholDatum.get(bestellungId);
+            deltas.merge(new MengenSchluessel(datum, gerichtId, alterStatus.get(bestellungId)), -anzahl, Integer::sum);
+            deltas.merge(new MengenSchluessel(datum, gerichtId, neuerStatus), anzahl, Integer::sum);
+        }
+
+        addiere(deltas);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProduktionsMengeResponse> getProduktionsMengen(LocalDate datum) {
+        Map<Long, ProduktionsMengeResponse> proGericht = new LinkedHashMap<>();
+        for (ProduktionsMenge menge : produktionsMengeRepository.findByAbholDatum(datum)) {
+            ProduktionsMengeResponse response = proGericht.computeIfAbsent(menge.getGericht().getId(), id -> {
+                ProduktionsMengeResponse neu = new ProduktionsMengeResponse();
+                neu.setGerichtId(id);
+                neu.setGerichtName(menge.getGericht().getName());
+                return neu;
+            });
+
+            int anzahl = menge.getAnzahl();
+            response.getMengenProStatus().put(menge.getStatus(), anzahl);
+            if (menge.getStatus() != BestellStatus.STORNIERT) {
+                response.setGesamt(response.getGesamt() + anzahl);
+            }
+            if (menge.getStatus() == BestellStatus.NEU || menge.getStatus() == BestellStatus.IN_ZUBEREITUNG) {
+                response.setOffen(response.getOffen() + anzahl);
+            }
+        }
+
+        List<ProduktionsMengeResponse> mengen = new ArrayList<>(proGericht.values());
+        mengen.sort(Comparator.comparingInt(ProduktionsMengeResponse::getOffen).reversed()
+                .thenComparing(ProduktionsMengeResponse::getGerichtName));
+        return mengen;
+    }
+
+    /**
+     * Baut die Mengen eines Tages aus den Bestellungen neu auf, z.B. nach einem Fehler
+     * oder nach Änderungen direkt in der Datenbank.
+     */
+    @Transactional
+    public int neuBerechnen(LocalDate datum) {
+        produktionsMengeRepository.deleteByAbholDatum(datum);
+        return produktionsMengeRepository.insertAusBestellungen(datum);
+    }
+
+    @Transactional
+    public int alleNeuBerechnen() {
+        produktionsMengeRepository.deleteAllMengen();
+        return produktionsMengeRepository.insertAlleAusBestellungen();
+    }
+
+    // Die Deltas sind nach Schlüssel sortiert: feste Sperrreihenfolge zwischen gleichzeitigen Transaktionen
+    private void addiere(Map<MengenSchluessel, Integer> deltas) {
+        deltas.forEach((schluessel, delta) -> {
+            if (delta != 0) {
+                produktionsMengeRepository.addiere(schluessel.datum, schluessel.gerichtId, schluessel.status.name(), delta);
+            }
+        });
+    }
+
+    // Sortierbar, damit alle Buchungen die Zeilen in derselben Reihenfolge sperren
+    private static final class MengenSchluessel implements Comparable<MengenSchluessel> {
+        private static final Comparator<MengenSchluessel> REIHENFOLGE = Comparator
+                .comparing((MengenSchluessel s) -> s.datum)
+                .thenComparing(s -> s.gerichtId)
+                .thenComparing(s -> s.status);
+
+        private final LocalDate datum;
+        private final Long gerichtId;
+        private final BestellStatus status;
+
+        private MengenSchluessel(LocalDate datum, Long gerichtId, BestellStatus status) {
+            this.datum = datum;
+            this.gerichtId = gerichtId;
+            this.status = status;
+        }
+
+        @Override
+        public int compareTo(MengenSchluessel andere) {
+            return REIHENFOLGE.compare(this, andere);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.RefreshToken;
+import ch.mensaapp.api.models.User;
+import ch.mensaapp.api.repositories.RefreshTokenRepository;
+import ch.mensaapp.api.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Verwaltet Refresh-Tokens pro Benutzer und Gerät. In der Datenbank liegt nur der
+ * Hash des Tokens; bei jeder Verwendung wird das Token ersetzt (Rotation).
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int MAX_GERAET_LENGTH = 255;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.jwt.refresh-expiration:30d}")
+    private Duration refreshTokenExpiration;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Stellt ein neues Refresh-Token aus. Ein bestehendes Token desselben Geräts wird ersetzt.
+     */
+    @Transactional
+    public String createRefreshToken(Long userId, String geraet) {
+        User user = userRepository.getReferenceById(userId);
+        String normalizedGeraet = normalizeGeraet(geraet);
+        refreshTokenRepository.deleteByUserAndGeraet(user, normalizedGeraet);
+
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+
+        LocalDateTime jetzt = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(null, user, hash(token), normalizedGeraet,
+                jetzt, jetzt.plus(refreshTokenExpiration)));
+        return token;
+    }
+
+    /**
+     * Löst ein Refresh-Token ein und entwertet es. Liefert den Benutzer, wenn das Token
+     * gültig war; bei gleichzeitiger Verwendung gewinnt nur eine Anfrage.
+     */
+    @Transactional
+    public Optional<User> consumeRefreshToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        String tokenHash = hash(token);
+        Optional<RefreshToken> refreshToken = refreshTokenRepository.findByTokenHash(tokenHash);
+        if (refreshToken.isEmpty() || refreshTokenRepository.deleteByTokenHash(tokenHash) == 0) {
+            return Optional.empty();
+        }
+        if (refreshToken.get().getAblaufDatum().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(refreshToken.get().getUser());
+    }
+
+    @Transactional
+    public void revokeRefreshToken(String token) {
+        if (token != null && !token.isBlank()) {
+            refreshTokenRepository.deleteByTokenHash(hash(token));
+        }
+    }
+
+    @Transactional
+    public void revokeAllRefreshTokens(User user) {
+        refreshTokenRepository.deleteByUser(user);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.refresh-token-purge-interval:3600000}")
+    @Transactional
+    public void deleteExpiredRefreshTokens() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private String normalizeGeraet(String geraet) {
+        if (geraet == null || geraet.isBlank()) {
+            return "unbekannt";
+        }
+        return geraet.length() > MAX_GERAET_LENGTH ? geraet.substring(0, MAX_GERAET_LENGTH) : geraet;
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
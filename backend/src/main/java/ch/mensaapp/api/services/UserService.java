@@ -8,6 +8,8 @@ import ch.mensaapp.api.payload.request.ProfileUpdateRequest;
 import ch.mensaapp.api.payload.response.UserResponse;
 import ch.mensaapp.api.repositories.RoleRepository;
 import ch.mensaapp.api.repositories.UserRepository;
+import ch.mensaapp.api.security.SecurityVersionRegistry;
+import ch.mensaapp.api.security.UserDetailsCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -29,6 +31,15 @@ public class UserService {
     @Autowired
     private PasswordEncoder encoder;
 
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(UserResponse::fromEntity)
@@ -51,6 +62,11 @@ public class UserService {
             throw new RuntimeException("E-Mail wird bereits verwendet");
         }
 
+        userDetailsCache.evict(user.getEmail());
+        if (!user.getEmail().equals(profileRequest.getEmail())) {
+            // Die E-Mail ist der Subject bestehender Tokens; sie sollen nicht unter der alten Adresse weitergelten
+            securityVersionRegistry.bump(user);
+        }
         user.setVorname(profileRequest.getVorname());
         user.setNachname(profileRequest.getNachname());
         user.setEmail(profileRequest.getEmail());
@@ -69,7 +85,11 @@ public class UserService {
         }
 
         user.setPassword(encoder.encode(passwordRequest.getNeuesPassword()));
+        // Andere Geräte müssen sich nach einer Passwortänderung neu anmelden
+        securityVersionRegistry.bump(user);
         userRepository.save(user);
+        userDetailsCache.evict(user.getEmail());
+        refreshTokenService.revokeAllRefreshTokens(user);
     }
 
     @Transactional
@@ -92,6 +112,9 @@ public class UserService {
         }
 
         user.setRoles(roles);
+        // Bestehende Tokens tragen noch die alten Rollen
+        securityVersionRegistry.bump(user);
+        userDetailsCache.evict(user.getEmail());
         return UserResponse.fromEntity(userRepository.save(user));
     }
 }
@@ -1,14 +1,17 @@
 package ch.mensaapp.api.services;
 
+import ch.mensaapp.api.events.BestellungEvent;
 import ch.mensaapp.api.models.Bestellung;
 import ch.mensaapp.api.models.Zahlung;
 import ch.mensaapp.api.models.ZahlungsMethode;
 import ch.mensaapp.api.models.ZahlungsStatus;
 import ch.mensaapp.api.payload.request.ZahlungRequest;
+import ch.mensaapp.api.payload.response.BestellungResponse;
 import ch.mensaapp.api.payload.response.ZahlungResponse;
 import ch.mensaapp.api.repositories.BestellungRepository;
 import ch.mensaapp.api.repositories.ZahlungRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -27,6 +30,9 @@ public class ZahlungService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Transactional
     public ZahlungResponse verarbeiteZahlung(Long bestellungId, ZahlungRequest zahlungRequest, Long userId) {
         Bestellung bestellung = bestellungRepository.findById(bestellungId)
@@ -89,6 +95,7 @@ public class ZahlungService {
         if (paymentSuccess) {
             emailService.sendeZahlungsBestaetigung(bestellung);
             System.out.println("Zahlungsbestätigung gesendet für Bestellung ID: " + bestellungId);
+            eventPublisher.publishEvent(new BestellungEvent(BestellungEvent.Typ.BEZAHLT, BestellungResponse.fromEntity(bestellung)));
         }
         
         return ZahlungResponse.fromEntity(gespeicherteZahlung);
@@ -140,6 +147,7 @@ public class ZahlungService {
                     
                     // E-Mail senden
                     emailService.sendeZahlungsBestaetigung(bestellung);
+                    eventPublisher.publishEvent(new BestellungEvent(BestellungEvent.Typ.BEZAHLT, BestellungResponse.fromEntity(bestellung)));
                 }
             } else if ("failed".equals(status)) {
                 zahlung.setErfolgreich(false);
@@ -0,0 +1,190 @@
+-- Basisschema, entspricht den JPA-Entitäten (bisher von Hibernate per ddl-auto erzeugt).
+-- IDs kommen aus Sequenzen mit Schrittweite 50 (allocationSize der Entitäten).
+
+CREATE SEQUENCE roles_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE refresh_tokens_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE gerichte_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE getraenke_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE menuplan_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE bestellungen_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE bestell_positionen_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE zahlungen_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE abholslot_kapazitaeten_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE roles (
+    id   BIGINT NOT NULL,
+    name VARCHAR(20) CHECK (name IN ('ROLE_USER', 'ROLE_STAFF', 'ROLE_MENSA_ADMIN')),
+    CONSTRAINT pk_roles PRIMARY KEY (id)
+);
+
+CREATE TABLE users (
+    id                 BIGINT       NOT NULL,
+    vorname            VARCHAR(255) NOT NULL,
+    nachname           VARCHAR(255) NOT NULL,
+    email              VARCHAR(255) NOT NULL,
+    password           VARCHAR(255) NOT NULL,
+    account_non_locked BOOLEAN      DEFAULT TRUE NOT NULL,
+    failed_attempt     INTEGER      DEFAULT 0 NOT NULL,
+    lock_time          TIMESTAMP(6),
+    mfa_enabled        BOOLEAN      NOT NULL,
+    mfa_secret         VARCHAR(255),
+    security_version   INTEGER      DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id BIGINT NOT NULL,
+    CONSTRAINT pk_user_roles PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE refresh_tokens (
+    id           BIGINT       NOT NULL,
+    user_id      BIGINT       NOT NULL,
+    token_hash   VARCHAR(64)  NOT NULL,
+    geraet       VARCHAR(255) NOT NULL,
+    erstellt_am  TIMESTAMP(6) NOT NULL,
+    ablauf_datum TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_refresh_tokens PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_refresh_tokens_user_device ON refresh_tokens (user_id, geraet);
+
+CREATE TABLE gerichte (
+    id           BIGINT         NOT NULL,
+    name         VARCHAR(255)   NOT NULL,
+    beschreibung VARCHAR(1000),
+    preis        NUMERIC(38, 2) NOT NULL,
+    bild_url     VARCHAR(255),
+    vegetarisch  BOOLEAN        NOT NULL,
+    vegan        BOOLEAN        NOT NULL,
+    CONSTRAINT pk_gerichte PRIMARY KEY (id)
+);
+
+CREATE TABLE gericht_zutaten (
+    gericht_id BIGINT NOT NULL,
+    zutat      VARCHAR(255),
+    CONSTRAINT fk_gericht_zutaten_gericht FOREIGN KEY (gericht_id) REFERENCES gerichte (id)
+);
+
+CREATE TABLE gericht_allergene (
+    gericht_id BIGINT NOT NULL,
+    allergen   VARCHAR(255),
+    CONSTRAINT fk_gericht_allergene_gericht FOREIGN KEY (gericht_id) REFERENCES gerichte (id)
+);
+
+CREATE TABLE getraenke (
+    id           BIGINT         NOT NULL,
+    name         VARCHAR(255)   NOT NULL,
+    beschreibung VARCHAR(1000)  NOT NULL,
+    preis        NUMERIC(38, 2) NOT NULL,
+    bild_url     VARCHAR(255),
+    vegetarisch  BOOLEAN        NOT NULL,
+    vegan        BOOLEAN        NOT NULL,
+    verfuegbar   BOOLEAN        NOT NULL,
+    vorrat       INTEGER        NOT NULL,
+    CONSTRAINT pk_getraenke PRIMARY KEY (id)
+);
+
+CREATE TABLE getraenk_allergene (
+    getraenk_id BIGINT NOT NULL,
+    allergen    VARCHAR(255),
+    CONSTRAINT fk_getraenk_allergene_getraenk FOREIGN KEY (getraenk_id) REFERENCES getraenke (id)
+);
+
+CREATE TABLE menuplan (
+    id    BIGINT NOT NULL,
+    datum DATE   NOT NULL,
+    CONSTRAINT pk_menuplan PRIMARY KEY (id),
+    CONSTRAINT uk_menuplan_datum UNIQUE (datum)
+);
+
+CREATE TABLE menuplan_gerichte (
+    menuplan_id BIGINT NOT NULL,
+    gericht_id  BIGINT NOT NULL,
+    CONSTRAINT pk_menuplan_gerichte PRIMARY KEY (menuplan_id, gericht_id),
+    CONSTRAINT fk_menuplan_gerichte_menuplan FOREIGN KEY (menuplan_id) REFERENCES menuplan (id),
+    CONSTRAINT fk_menuplan_gerichte_gericht FOREIGN KEY (gericht_id) REFERENCES gerichte (id)
+);
+
+CREATE TABLE menuplan_getraenke (
+    menuplan_id BIGINT NOT NULL,
+    getraenk_id BIGINT NOT NULL,
+    CONSTRAINT pk_menuplan_getraenke PRIMARY KEY (menuplan_id, getraenk_id),
+    CONSTRAINT fk_menuplan_getraenke_menuplan FOREIGN KEY (menuplan_id) REFERENCES menuplan (id),
+    CONSTRAINT fk_menuplan_getraenke_getraenk FOREIGN KEY (getraenk_id) REFERENCES getraenke (id)
+);
+
+CREATE TABLE bestellungen (
+    id                BIGINT         NOT NULL,
+    user_id           BIGINT         NOT NULL,
+    abhol_datum       DATE           NOT NULL,
+    abhol_zeit        TIME(6)        NOT NULL,
+    bestell_datum     DATE           NOT NULL,
+    gesamt_preis      NUMERIC(38, 2) NOT NULL,
+    status            VARCHAR(255)   NOT NULL
+        CHECK (status IN ('NEU', 'IN_ZUBEREITUNG', 'BEREIT', 'ABGEHOLT', 'STORNIERT')),
+    zahlungs_status   VARCHAR(255)   NOT NULL
+        CHECK (zahlungs_status IN ('AUSSTEHEND', 'BEZAHLT', 'STORNIERT')),
+    zahlungs_referenz VARCHAR(255),
+    bemerkungen       VARCHAR(1000),
+    CONSTRAINT pk_bestellungen PRIMARY KEY (id),
+    CONSTRAINT fk_bestellungen_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_bestellungen_abholdatum_id ON bestellungen (abhol_datum, id);
+CREATE INDEX idx_bestellungen_status_abholdatum_id ON bestellungen (status, abhol_datum, id);
+CREATE INDEX idx_bestellungen_zahlungsstatus_abholdatum_id ON bestellungen (zahlungs_status, abhol_datum, id);
+
+CREATE TABLE bestell_positionen (
+    id            BIGINT         NOT NULL,
+    bestellung_id BIGINT         NOT NULL,
+    gericht_id    BIGINT         NOT NULL,
+    anzahl        INTEGER        NOT NULL,
+    einzel_preis  NUMERIC(38, 2) NOT NULL,
+    CONSTRAINT pk_bestell_positionen PRIMARY KEY (id),
+    CONSTRAINT fk_bestell_positionen_bestellung FOREIGN KEY (bestellung_id) REFERENCES bestellungen (id),
+    CONSTRAINT fk_bestell_positionen_gericht FOREIGN KEY (gericht_id) REFERENCES gerichte (id)
+);
+
+CREATE TABLE zahlungen (
+    id               BIGINT         NOT NULL,
+    bestellung_id    BIGINT         NOT NULL,
+    betrag           NUMERIC(38, 2) NOT NULL,
+    zahlungs_methode VARCHAR(255)   NOT NULL
+        CHECK (zahlungs_methode IN ('KREDITKARTE', 'DEBITKARTE', 'MOCK_PROVIDER')),
+    transaktions_id  VARCHAR(100)   NOT NULL,
+    zeitpunkt        TIMESTAMP(6)   NOT NULL,
+    erfolgreich      BOOLEAN        NOT NULL,
+    fehler_meldung   VARCHAR(1000),
+    CONSTRAINT pk_zahlungen PRIMARY KEY (id),
+    CONSTRAINT fk_zahlungen_bestellung FOREIGN KEY (bestellung_id) REFERENCES bestellungen (id)
+);
+
+CREATE TABLE abholslot_kapazitaeten (
+    id          BIGINT  NOT NULL,
+    datum       DATE    NOT NULL,
+    slot_beginn TIME(6) NOT NULL,
+    kapazitaet  INTEGER NOT NULL,
+    CONSTRAINT pk_abholslot_kapazitaeten PRIMARY KEY (id),
+    CONSTRAINT uk_abholslot_kapazitaeten_datum_slot UNIQUE (datum, slot_beginn)
+);
+
+-- Zeilen entstehen nur über native Upserts (ON CONFLICT auf dem Unique-Key), daher IDENTITY statt Sequenz
+CREATE TABLE produktions_mengen (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    abhol_datum DATE         NOT NULL,
+    gericht_id  BIGINT       NOT NULL,
+    status      VARCHAR(255) NOT NULL
+        CHECK (status IN ('NEU', 'IN_ZUBEREITUNG', 'BEREIT', 'ABGEHOLT', 'STORNIERT')),
+    anzahl      INTEGER      NOT NULL,
+    CONSTRAINT pk_produktions_mengen PRIMARY KEY (id),
+    CONSTRAINT uk_produktions_mengen_datum_gericht_status UNIQUE (abhol_datum, gericht_id, status),
+    CONSTRAINT fk_produktions_mengen_gericht FOREIGN KEY (gericht_id) REFERENCES gerichte (id)
+);
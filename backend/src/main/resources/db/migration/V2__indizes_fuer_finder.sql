@@ -0,0 +1,34 @@
+-- Indizes für die Finder der Repositories. Bereits durch V1 abgedeckt:
+--   findByAbholDatum                 -> idx_bestellungen_abholdatum_id
+--   findByAbholDatumAndStatus        -> idx_bestellungen_status_abholdatum_id
+--   findByZahlungsStatus             -> idx_bestellungen_zahlungsstatus_abholdatum_id
+--   ProduktionsMenge.findByAbholDatum -> uk_produktions_mengen_datum_gericht_status
+
+-- findByUser, findByUserAndStatus, findMitDetailsByUserId (Bestellhistorie)
+CREATE INDEX idx_bestellungen_user_status ON bestellungen (user_id, status);
+
+-- Belegung der Abholzeitfenster (countByAbholZeit) und Sammel-Statuswechsel pro Zeitfenster
+CREATE INDEX idx_bestellungen_abholdatum_abholzeit ON bestellungen (abhol_datum, abhol_zeit) INCLUDE (status);
+
+-- Positionen einer Bestellung (Fetch-Joins, Produktionsmengen) und Positionen eines Gerichts
+CREATE INDEX idx_bestell_positionen_bestellung ON bestell_positionen (bestellung_id);
+CREATE INDEX idx_bestell_positionen_gericht ON bestell_positionen (gericht_id);
+
+-- findByTransaktionsId (Zahlungs-Webhook) und Zahlungen einer Bestellung nach Zeitpunkt
+CREATE INDEX idx_zahlungen_transaktions_id ON zahlungen (transaktions_id);
+CREATE INDEX idx_zahlungen_bestellung_zeitpunkt ON zahlungen (bestellung_id, zeitpunkt);
+
+-- findMenuplanDatesForGericht(e): vom Gericht zum Menüplan; der Primärschlüssel beginnt mit menuplan_id
+CREATE INDEX idx_menuplan_gerichte_gericht ON menuplan_gerichte (gericht_id, menuplan_id);
+CREATE INDEX idx_menuplan_getraenke_getraenk ON menuplan_getraenke (getraenk_id, menuplan_id);
+
+-- Element-Collections werden pro Gericht bzw. Getränk nachgeladen
+CREATE INDEX idx_gericht_zutaten_gericht ON gericht_zutaten (gericht_id);
+CREATE INDEX idx_gericht_allergene_gericht ON gericht_allergene (gericht_id);
+CREATE INDEX idx_getraenk_allergene_getraenk ON getraenk_allergene (getraenk_id);
+
+-- Aufräumen abgelaufener Refresh-Tokens
+CREATE INDEX idx_refresh_tokens_ablauf_datum ON refresh_tokens (ablauf_datum);
+
+-- Sweeper für abgelaufene Account-Sperren; gesperrt sind nur wenige Accounts
+CREATE INDEX idx_users_gesperrt_lock_time ON users (lock_time) WHERE account_non_locked = FALSE;
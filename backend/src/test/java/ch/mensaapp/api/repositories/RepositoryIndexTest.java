@@ -0,0 +1,188 @@
+package ch.mensaapp.api.repositories;
+
+import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.models.User;
+import ch.mensaapp.api.models.ZahlungsStatus;
+import ch.mensaapp.api.payload.request.BestellungFilterRequest;
+import ch.mensaapp.api.support.BestellTestdaten;
+import ch.mensaapp.api.support.PostgresIntegrationTest;
+import ch.mensaapp.api.support.SqlStatementRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prüft mit EXPLAIN, dass die Finder die Indizes aus den Migrationen verwenden. Das SQL
+ * stammt von Hibernate selbst; erklärt wird der generische Plan des vorbereiteten Statements
+ * mit ausgeschaltetem Seq Scan, damit die kleinen Testtabellen das Ergebnis nicht bestimmen.
+ * Gibt es keinen passenden Index, bleibt es trotzdem beim Seq Scan.
+ */
+class RepositoryIndexTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private BestellungRepository bestellungRepository;
+
+    @Autowired
+    private ZahlungRepository zahlungRepository;
+
+    @Autowired
+    private MenuplanRepository menuplanRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BestellTestdaten testdaten;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void bestellungenNachAbholDatum() {
+        // Beide Indizes beginnen mit abhol_datum; welcher billiger ist, hängt von Grösse und Statistik ab
+        assertThat(plan(() -> bestellungRepository.findByAbholDatum(LocalDate.now())))
+                .containsAnyOf("idx_bestellungen_abholdatum_id", "idx_bestellungen_abholdatum_abholzeit");
+    }
+
+    @Test
+    void bestellungenNachAbholDatumUndStatus() {
+        assertThat(plan(() -> bestellungRepository.findByAbholDatumAndStatus(LocalDate.now(), BestellStatus.BEREIT)))
+                .containsAnyOf("idx_bestellungen_status_abholdatum_id", "idx_bestellungen_abholdatum_id",
+                        "idx_bestellungen_abholdatum_abholzeit");
+    }
+
+    @Test
+    void bestellungenNachZahlungsStatus() {
+        assertThat(plan(() -> bestellungRepository.findByZahlungsStatus(ZahlungsStatus.AUSSTEHEND)))
+                .contains("idx_bestellungen_zahlungsstatus_abholdatum_id");
+    }
+
+    @Test
+    void bestellungenEinesBenutzers() {
+        User user = userRepository.findById(testdaten.benutzer()).orElseThrow();
+        assertThat(plan(() -> bestellungRepository.findByUser(user)))
+                .contains("idx_bestellungen_user_status");
+        assertThat(plan(() -> bestellungRepository.findMitDetailsByUserId(user.getId())))
+                .contains("idx_bestellungen_user_status");
+    }
+
+    @Test
+    void belegungDerAbholzeitfenster() {
+        assertThat(plan(() -> bestellungRepository.countByAbholZeit(LocalDate.now(), BestellStatus.STORNIERT)))
+                .contains("idx_bestellungen_abholdatum_abholzeit");
+    }
+
+    @Test
+    void seiteDerBestelluebersichtAbCursor() {
+        assertThat(plan(() -> bestellungRepository.findSeitenIds(new BestellungFilterRequest(), LocalDate.now(), 1000L, 21)))
+                .contains("idx_bestellungen_abholdatum_id");
+    }
+
+    @Test
+    void zahlungNachTransaktionsId() {
+        assertThat(plan(() -> zahlungRepository.findByTransaktionsId("tx-1")))
+                .contains("idx_zahlungen_transaktions_id");
+    }
+
+    @Test
+    void menuplanDatenEinesGerichts() {
+        assertThat(plan(() -> menuplanRepository.findMenuplanDatesForGericht(1L, LocalDate.now())))
+                .contains("idx_menuplan_gerichte_gericht");
+        assertThat(plan(() -> menuplanRepository.findMenuplanDatesForGerichte(List.of(1L, 2L), LocalDate.now())))
+                .contains("idx_menuplan_gerichte_gericht");
+    }
+
+    @Test
+    void abgelaufeneRefreshTokens() {
+        assertThat(plan(() -> refreshTokenRepository.deleteExpired(LocalDateTime.now())))
+                .contains("idx_refresh_tokens_ablauf_datum");
+    }
+
+    @Test
+    void abgelaufeneAccountSperren() {
+        assertThat(plan(() -> userRepository.unlockExpiredAccounts(new Date())))
+                .contains("idx_users_gesperrt_lock_time");
+    }
+
+    // Führt den Finder in einer zurückgerollten Transaktion aus und erklärt seine erste Anweisung
+    private String plan(Runnable finder) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String sql = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            SqlStatementRecorder.starte();
+            List<String> anweisungen;
+            try {
+                finder.run();
+            } finally {
+                anweisungen = SqlStatementRecorder.stoppe();
+            }
+            return anweisungen.stream()
+                    .filter(anweisung -> !anweisung.contains("nextval"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Der Finder hat keine Anweisung ausgeführt"));
+        });
+        return erklaere(sql);
+    }
+
+    // Generischer Plan wie bei einem vorbereiteten Statement; die Parameterwerte spielen dann keine Rolle
+    private String erklaere(String sql) {
+        int parameter = (int) sql.chars().filter(zeichen -> zeichen == '?').count();
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL enable_seqscan = off");
+                statement.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+                statement.execute("PREPARE finder AS " + mitNummeriertenParametern(sql));
+                String werte = parameter == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameter, "NULL")) + ")";
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery("EXPLAIN EXECUTE finder" + werte)) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            } finally {
+                // Das vorbereitete Statement überdauert den Rollback
+                connection.rollback();
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DEALLOCATE ALL");
+                }
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    // PREPARE kennt keine JDBC-Platzhalter, nur $1, $2, ...
+    private String mitNummeriertenParametern(String sql) {
+        StringBuilder ergebnis = new StringBuilder();
+        int nummer = 0;
+        for (char zeichen : sql.toCharArray()) {
+            if (zeichen == '?') {
+                ergebnis.append('$').append(++nummer);
+            } else {
+                ergebnis.append(zeichen);
+            }
+        }
+        return ergebnis.toString();
+    }
+}
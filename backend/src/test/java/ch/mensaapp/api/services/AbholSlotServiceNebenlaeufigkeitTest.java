@@ -0,0 +1,138 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.AbholSlotKapazitaet;
+import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.models.Gericht;
+import ch.mensaapp.api.models.Menuplan;
+import ch.mensaapp.api.payload.response.AbholSlotResponse;
+import ch.mensaapp.api.repositories.AbholSlotKapazitaetRepository;
+import ch.mensaapp.api.repositories.BestellungRepository;
+import ch.mensaapp.api.support.BestellTestdaten;
+import ch.mensaapp.api.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Gleichzeitige Bestellungen für ein Abholzeitfenster dürfen seine Kapazität nicht überschreiten,
+ * auch wenn die Belegung des Tages erst durch diese Bestellungen geladen wird.
+ */
+class AbholSlotServiceNebenlaeufigkeitTest extends PostgresIntegrationTest {
+
+    private static final LocalTime SLOT = LocalTime.of(12, 0);
+    private static final int KAPAZITAET = 5;
+    private static final int BESTELLUNGEN = 20;
+
+    @Autowired
+    private BestellungService bestellungService;
+
+    @Autowired
+    private AbholSlotService abholSlotService;
+
+    @Autowired
+    private AbholSlotKapazitaetRepository kapazitaetRepository;
+
+    @Autowired
+    private BestellungRepository bestellungRepository;
+
+    @Autowired
+    private BestellTestdaten testdaten;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LocalDate datum;
+    private List<Gericht> gerichte;
+    private Long userId;
+
+    @BeforeEach
+    void testdaten() {
+        Menuplan menuplan = testdaten.menuplan(2);
+        datum = menuplan.getDatum();
+        gerichte = new ArrayList<>(menuplan.getGerichte());
+        userId = testdaten.benutzer();
+
+        // Direkt über das Repository, damit die Belegung des Tages noch nicht geladen ist
+        AbholSlotKapazitaet kapazitaet = new AbholSlotKapazitaet();
+        kapazitaet.setDatum(datum);
+        kapazitaet.setSlotBeginn(SLOT);
+        kapazitaet.setKapazitaet(KAPAZITAET);
+        kapazitaetRepository.save(kapazitaet);
+    }
+
+    @Test
+    void gleichzeitigeBestellungenFuellenDasZeitfensterGenauBisZurKapazitaet() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BESTELLUNGEN);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> ergebnisse = new ArrayList<>();
+        try {
+            for (int i = 0; i < BESTELLUNGEN; i++) {
+                ergebnisse.add(executor.submit(() -> {
+                    start.await();
+                    return bestellungService.erstelleBestellung(testdaten.bestellung(datum, SLOT, gerichte), userId);
+                }));
+            }
+            start.countDown();
+
+            int erfolgreich = 0;
+            for (Future<?> ergebnis : ergebnisse) {
+                try {
+                    ergebnis.get(60, TimeUnit.SECONDS);
+                    erfolgreich++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).hasMessageContaining("ausgebucht");
+                }
+            }
+
+            assertThat(erfolgreich).isEqualTo(KAPAZITAET);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(aktiveBestellungen()).isEqualTo(KAPAZITAET);
+        assertThat(slot().getBelegt()).isEqualTo(KAPAZITAET);
+    }
+
+    @Test
+    void zurueckgerollteBestellungGibtIhrenPlatzWiederFrei() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            bestellungService.erstelleBestellung(testdaten.bestellung(datum, SLOT, gerichte), userId);
+            status.setRollbackOnly();
+        });
+
+        assertThat(slot().getBelegt()).isZero();
+        assertThat(aktiveBestellungen()).isZero();
+
+        bestellungService.erstelleBestellung(testdaten.bestellung(datum, SLOT, gerichte), userId);
+        assertThat(slot().getBelegt()).isEqualTo(1);
+    }
+
+    private long aktiveBestellungen() {
+        return bestellungRepository.countByAbholZeit(datum, BestellStatus.STORNIERT).stream()
+                .mapToLong(row -> (Long) row[1])
+                .sum();
+    }
+
+    private AbholSlotResponse slot() {
+        return abholSlotService.getAbholSlots(datum).stream()
+                .filter(slot -> slot.getBeginn().equals(SLOT))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,79 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.Gericht;
+import ch.mensaapp.api.models.Menuplan;
+import ch.mensaapp.api.payload.request.BestellungRequest;
+import ch.mensaapp.api.support.BestellTestdaten;
+import ch.mensaapp.api.support.PostgresIntegrationTest;
+import ch.mensaapp.api.support.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Legt fest, wie viele Anweisungen das Erstellen einer Bestellung an die Datenbank schickt.
+ * Die Gerichte kommen aus dem bereits geladenen Menüplan; mit der Anzahl Positionen wächst
+ * nur die Zahl der Upserts für die Produktionsmengen (eines pro Gericht).
+ */
+class BestellungServiceQueryCountTest extends PostgresIntegrationTest {
+
+    // Benutzer, Menüplan mit Getränken, Gerichten, Zutaten und Allergenen, Bestellung, Positionen
+    // (ein Batch), Rollen für die Antwort, Produktionsmenge; ohne die Sequenzaufrufe der gepoolten IDs.
+    // Die Belegung der Abholzeitfenster ist nach der ersten Bestellung des Tages zwischengespeichert.
+    private static final int ANWEISUNGEN_MIT_EINER_POSITION = 10;
+
+    @Autowired
+    private BestellungService bestellungService;
+
+    @Autowired
+    private BestellTestdaten testdaten;
+
+    private LocalDate datum;
+    private List<Gericht> gerichte;
+    private Long userId;
+
+    @BeforeEach
+    void testdaten() {
+        Menuplan menuplan = testdaten.menuplan(6);
+        datum = menuplan.getDatum();
+        gerichte = new ArrayList<>(menuplan.getGerichte());
+        userId = testdaten.benutzer();
+
+        // Belegung des Tages und Produktionsmengen sind danach geladen bzw. angelegt
+        bestellungService.erstelleBestellung(testdaten.bestellung(datum, LocalTime.of(11, 0), gerichte), userId);
+    }
+
+    @Test
+    void anzahlAnweisungenHaengtNurUeberDieProduktionsmengenVonDenPositionenAb() {
+        List<String> einePosition = zeichneAuf(testdaten.bestellung(datum, LocalTime.of(12, 0), gerichte.subList(0, 1)));
+        List<String> sechsPositionen = zeichneAuf(testdaten.bestellung(datum, LocalTime.of(12, 15), gerichte));
+
+        assertThat(einePosition).hasSize(ANWEISUNGEN_MIT_EINER_POSITION);
+        assertThat(selects(sechsPositionen)).isEqualTo(selects(einePosition));
+        assertThat(sechsPositionen).hasSize(einePosition.size() + 5);
+    }
+
+    private List<String> zeichneAuf(BestellungRequest request) {
+        SqlStatementRecorder.starte();
+        List<String> anweisungen;
+        try {
+            bestellungService.erstelleBestellung(request, userId);
+        } finally {
+            anweisungen = SqlStatementRecorder.stoppe();
+        }
+        return anweisungen.stream()
+                .filter(sql -> !sql.contains("nextval"))
+                .toList();
+    }
+
+    private long selects(List<String> anweisungen) {
+        return anweisungen.stream().filter(sql -> sql.trim().toLowerCase().startsWith("select")).count();
+    }
+}
@@ -0,0 +1,115 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.Gericht;
+import ch.mensaapp.api.models.Menuplan;
+import ch.mensaapp.api.payload.request.BestellungFilterRequest;
+import ch.mensaapp.api.payload.response.BestellungSeiteResponse;
+import ch.mensaapp.api.support.BestellTestdaten;
+import ch.mensaapp.api.support.PostgresIntegrationTest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Die Lesepfade für Bestellantworten laden Benutzer, Positionen, Gerichte und deren
+ * Element-Collections mit einer festen Zahl von Anweisungen, unabhängig von der Zahl der
+ * Bestellungen. Gezählt wird mit den Hibernate-Statistiken (vorbereitete JDBC-Anweisungen).
+ */
+class BestellungServiceStatistikTest extends PostgresIntegrationTest {
+
+    private static final int WENIGE = 2;
+    private static final int VIELE = 3 * WENIGE;
+
+    @Autowired
+    private BestellungService bestellungService;
+
+    @Autowired
+    private BestellTestdaten testdaten;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private LocalDate datum;
+    private List<Gericht> gerichte;
+    private Long userId;
+    private int bestellungen;
+
+    @BeforeEach
+    void testdaten() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Menuplan menuplan = testdaten.menuplan(3);
+        datum = menuplan.getDatum();
+        gerichte = new ArrayList<>(menuplan.getGerichte());
+        userId = testdaten.benutzer();
+        bestellungen = 0;
+    }
+
+    @Test
+    void bestellungenEinesBenutzers() {
+        bestelleBis(WENIGE);
+        long wenige = zaehle(() -> assertThat(bestellungService.getBestellungenByUser(userId)).hasSize(WENIGE));
+        bestelleBis(VIELE);
+        long viele = zaehle(() -> assertThat(bestellungService.getBestellungenByUser(userId)).hasSize(VIELE));
+
+        // Existenzprüfung des Benutzers und eine Abfrage mit Fetch-Joins
+        assertThat(wenige).isEqualTo(2);
+        assertThat(viele).isEqualTo(wenige);
+    }
+
+    @Test
+    void bestellungenEinesAbholtags() {
+        bestelleBis(WENIGE);
+        long wenige = zaehle(() -> assertThat(bestellungService.getBestellungenByAbholDatum(datum)).hasSize(WENIGE));
+        bestelleBis(VIELE);
+        long viele = zaehle(() -> assertThat(bestellungService.getBestellungenByAbholDatum(datum)).hasSize(VIELE));
+
+        // Eine Abfrage mit Fetch-Joins
+        assertThat(wenige).isEqualTo(1);
+        assertThat(viele).isEqualTo(wenige);
+    }
+
+    @Test
+    void seiteDerBestelluebersicht() {
+        BestellungFilterRequest filter = new BestellungFilterRequest();
+        filter.setVon(datum);
+        filter.setBis(datum);
+
+        bestelleBis(WENIGE);
+        long wenige = zaehle(() -> assertThat(seite(filter).getBestellungen()).hasSize(WENIGE));
+        bestelleBis(VIELE);
+        long viele = zaehle(() -> assertThat(seite(filter).getBestellungen()).hasSize(VIELE));
+
+        // IDs der Seite und eine Abfrage mit Fetch-Joins für diese IDs
+        assertThat(wenige).isEqualTo(2);
+        assertThat(viele).isEqualTo(wenige);
+    }
+
+    private BestellungSeiteResponse seite(BestellungFilterRequest filter) {
+        return bestellungService.getBestellungenSeite(filter, null, 50);
+    }
+
+    private long zaehle(Runnable lesen) {
+        statistics.clear();
+        lesen.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Jede Bestellung enthält alle Gerichte; je Viertelstunde eine, damit kein Zeitfenster voll wird
+    private void bestelleBis(int anzahl) {
+        for (; bestellungen < anzahl; bestellungen++) {
+            LocalTime abholZeit = LocalTime.of(11, 0).plusMinutes(15L * bestellungen);
+            bestellungService.erstelleBestellung(testdaten.bestellung(datum, abholZeit, gerichte), userId);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ch.mensaapp.api.services;
+
+import ch.mensaapp.api.models.BestellStatus;
+import ch.mensaapp.api.models.Gericht;
+import ch.mensaapp.api.models.Menuplan;
+import ch.mensaapp.api.models.ZahlungsStatus;
+import ch.mensaapp.api.payload.request.BestellStatusBulkRequest;
+import ch.mensaapp.api.payload.response.BestellungResponse;
+import ch.mensaapp.api.support.BestellTestdaten;
+import ch.mensaapp.api.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Der Sammel-Statuswechsel ändert die Bestellungen in einem Statement und muss dabei dieselben
+ * Felder setzen wie der Wechsel einer einzelnen Bestellung.
+ */
+class BestellungServiceStatuswechselTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private BestellungService bestellungService;
+
+    @Autowired
+    private BestellTestdaten testdaten;
+
+    @Test
+    void sammelStornierungStorniertAuchDieZahlung() {
+        Menuplan menuplan = testdaten.menuplan(2);
+        List<Gericht> gerichte = new ArrayList<>(menuplan.getGerichte());
+        Long userId = testdaten.benutzer();
+        Long storniert = bestellungService.erstelleBestellung(
+                testdaten.bestellung(menuplan.getDatum(), LocalTime.of(12, 0), gerichte), userId).getId();
+        Long inZubereitung = bestellungService.erstelleBestellung(
+                testdaten.bestellung(menuplan.getDatum(), LocalTime.of(12, 15), gerichte), userId).getId();
+
+        bestellungService.updateBestellungStatus(bulk(BestellStatus.STORNIERT, storniert));
+        bestellungService.updateBestellungStatus(bulk(BestellStatus.IN_ZUBEREITUNG, inZubereitung));
+
+        BestellungResponse stornierteBestellung = bestellungService.getBestellungById(storniert);
+        assertThat(stornierteBestellung.getStatus()).isEqualTo(BestellStatus.STORNIERT);
+        assertThat(stornierteBestellung.getZahlungsStatus()).isEqualTo(ZahlungsStatus.STORNIERT);
+
+        BestellungResponse zubereitet = bestellungService.getBestellungById(inZubereitung);
+        assertThat(zubereitet.getStatus()).isEqualTo(BestellStatus.IN_ZUBEREITUNG);
+        assertThat(zubereitet.getZahlungsStatus()).isEqualTo(ZahlungsStatus.AUSSTEHEND);
+    }
+
+    private BestellStatusBulkRequest bulk(BestellStatus zielStatus, Long id) {
+        BestellStatusBulkRequest request = new BestellStatusBulkRequest();
+        request.setZielStatus(zielStatus);
+        request.setIds(List.of(id));
+        return request;
+    }
+}
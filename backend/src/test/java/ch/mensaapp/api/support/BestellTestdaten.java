@@ -0,0 +1,88 @@
+package ch.mensaapp.api.support;
+
+import ch.mensaapp.api.models.Gericht;
+import ch.mensaapp.api.models.Menuplan;
+import ch.mensaapp.api.models.User;
+import ch.mensaapp.api.payload.request.BestellPositionRequest;
+import ch.mensaapp.api.payload.request.BestellungRequest;
+import ch.mensaapp.api.repositories.GerichtRepository;
+import ch.mensaapp.api.repositories.MenuplanRepository;
+import ch.mensaapp.api.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Legt eigene Gerichte, Menüpläne und Benutzer an, damit Tests nicht von den zufälligen
+ * Beispieldaten des DataLoaders abhängen.
+ */
+@Component
+public class BestellTestdaten {
+
+    @Autowired
+    private GerichtRepository gerichtRepository;
+
+    @Autowired
+    private MenuplanRepository menuplanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Menüplan mit neuen Gerichten an einem Tag ohne Menüplan, auch wenn die Testdatenbank
+     * wiederverwendet wird.
+     */
+    public Menuplan menuplan(int anzahlGerichte) {
+        Set<Gericht> gerichte = new HashSet<>();
+        for (int i = 1; i <= anzahlGerichte; i++) {
+            Gericht gericht = new Gericht();
+            gericht.setName("Testgericht " + i);
+            gericht.setPreis(new BigDecimal("8.50"));
+            gericht.setZutaten(new HashSet<>(Set.of("Reis", "Gemüse")));
+            gericht.setAllergene(new HashSet<>(Set.of("Sellerie")));
+            gerichte.add(gerichtRepository.save(gericht));
+        }
+
+        LocalDate datum = LocalDate.now().plusDays(30);
+        while (menuplanRepository.findByDatum(datum).isPresent()) {
+            datum = datum.plusDays(1);
+        }
+        Menuplan menuplan = new Menuplan();
+        menuplan.setDatum(datum);
+        menuplan.setGerichte(gerichte);
+        return menuplanRepository.save(menuplan);
+    }
+
+    public Long benutzer() {
+        User user = new User();
+        user.setVorname("Test");
+        user.setNachname("Bestellung");
+        user.setEmail("bestellung-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("kein-login");
+        return userRepository.save(user).getId();
+    }
+
+    // Je zwei Portionen der angegebenen Gerichte
+    public BestellungRequest bestellung(LocalDate datum, LocalTime abholZeit, List<Gericht> gerichte) {
+        BestellungRequest request = new BestellungRequest();
+        request.setAbholDatum(datum);
+        request.setAbholZeit(abholZeit);
+        List<BestellPositionRequest> positionen = new ArrayList<>();
+        for (Gericht gericht : gerichte) {
+            BestellPositionRequest position = new BestellPositionRequest();
+            position.setGerichtId(gericht.getId());
+            position.setAnzahl(2);
+            positionen.add(position);
+        }
+        request.setPositionen(positionen);
+        return request;
+    }
+}
@@ -0,0 +1,62 @@
+package ch.mensaapp.api.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Basis für Integrationstests gegen PostgreSQL mit dem Schema aus den Flyway-Migrationen.
+ * Standardmässig wird einmal pro JVM ein eingebettetes PostgreSQL 16 gestartet. Ist
+ * TEST_DB_URL gesetzt (dazu TEST_DB_USER und TEST_DB_PASS), wird stattdessen diese, möglichst
+ * leere, Datenbank verwendet. Das ist nötig, wenn die Tests als root laufen: PostgreSQL
+ * verweigert dann den Start.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class PostgresIntegrationTest {
+
+    @DynamicPropertySource
+    static void datenbank(DynamicPropertyRegistry registry) {
+        String url = System.getenv("TEST_DB_URL");
+        if (url != null) {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_DB_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_DB_PASS"));
+            return;
+        }
+        EmbeddedPostgres postgres = EingebettetePostgres.INSTANZ;
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    // Erst beim ersten Zugriff gestartet und beim Beenden der JVM gestoppt
+    private static final class EingebettetePostgres {
+        private static final EmbeddedPostgres INSTANZ = starte();
+
+        private static EmbeddedPostgres starte() {
+            if ("root".equals(System.getProperty("user.name"))) {
+                throw new IllegalStateException("PostgreSQL startet nicht als root; "
+                        + "Tests als anderer Benutzer ausführen oder TEST_DB_URL auf eine Datenbank setzen");
+            }
+            try {
+                EmbeddedPostgres postgres = EmbeddedPostgres.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        postgres.close();
+                    } catch (IOException e) {
+                        // JVM wird ohnehin beendet
+                    }
+                }));
+                return postgres;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Eingebettetes PostgreSQL konnte nicht gestartet werden", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ch.mensaapp.api.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zeichnet die SQL-Anweisungen auf, die Hibernate im aktuellen Thread vorbereitet, auch native
+ * Abfragen. Ein JDBC-Batch zählt als eine Anweisung. Eingebunden über
+ * hibernate.session_factory.statement_inspector in application-test.properties.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> AUFZEICHNUNG = new ThreadLocal<>();
+
+    public static void starte() {
+        AUFZEICHNUNG.set(new ArrayList<>());
+    }
+
+    public static List<String> stoppe() {
+        List<String> anweisungen = AUFZEICHNUNG.get();
+        AUFZEICHNUNG.remove();
+        return anweisungen != null ? anweisungen : List.of();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> anweisungen = AUFZEICHNUNG.get();
+        if (anweisungen != null) {
+            anweisungen.add(sql);
+        }
+        return sql;
+    }
+}
@@ -17,6 +17,7 @@ import {
   Divider,
   TextField,
   Grid,
+  Checkbox,
 } from '@mui/material';
 import {
   MoreVert as MoreVertIcon,
@@ -31,12 +32,21 @@ import { LocalizationProvider } from '@mui/x-date-pickers/LocalizationProvider';
 import { DatePicker } from '@mui/x-date-pickers/DatePicker';
 import deLocale from 'date-fns/locale/de';
 
-const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
+const OrderManagement = ({
+  orders,
+  filter,
+  onFilterChange,
+  hasMore,
+  loadingMore,
+  onLoadMore,
+  onUpdateStatus,
+  onUpdateStatusBulk,
+  onRefresh,
+}) => {
   const [statusAnchorEl, setStatusAnchorEl] = useState(null);
   const [currentOrderId, setCurrentOrderId] = useState(null);
   const [showFilters, setShowFilters] = useState(false);
-  const [filterDate, setFilterDate] = useState(null);
-  const [filterStatus, setFilterStatus] = useState('');
+  const [selectedIds, setSelectedIds] = useState([]);
   
   const handleStatusMenuOpen = (event, orderId) => {
     setStatusAnchorEl(event.currentTarget);
@@ -51,25 +61,47 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
   const handleStatusChange = (status) => {
     if (currentOrderId) {
       onUpdateStatus(currentOrderId, status);
+    } else if (selectedIds.length > 0) {
+      // Ohne einzelne Bestellung gilt das Menü für die Auswahl
+      onUpdateStatusBulk(selectedIds, status);
+      setSelectedIds([]);
     }
     handleStatusMenuClose();
   };
   
+  const toggleSelected = (orderId) => {
+    setSelectedIds(current => (
+      current.includes(orderId) ? current.filter(id => id !== orderId) : [...current, orderId]
+    ));
+  };
+  
+  const toggleAllSelected = () => {
+    setSelectedIds(selectedIds.length === orders.length ? [] : orders.map(order => order.id));
+  };
+  
   const toggleFilters = () => {
     setShowFilters(!showFilters);
   };
   
+  // Gefiltert wird serverseitig; Änderungen laden die erste Seite neu
   const handleFilterDateChange = (date) => {
-    setFilterDate(date);
+    setSelectedIds([]);
+    onFilterChange({ ...filter, datum: date });
   };
   
   const handleFilterStatusChange = (event) => {
-    setFilterStatus(event.target.value);
+    setSelectedIds([]);
+    onFilterChange({ ...filter, status: event.target.value });
+  };
+  
+  const handleFilterZahlungsStatusChange = (event) => {
+    setSelectedIds([]);
+    onFilterChange({ ...filter, zahlungsStatus: event.target.value });
   };
   
   const clearFilters = () => {
-    setFilterDate(null);
-    setFilterStatus('');
+    setSelectedIds([]);
+    onFilterChange({ datum: null, status: '', zahlungsStatus: '' });
   };
   
   // Status options for filter and change status menu
@@ -81,26 +113,11 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
     { value: 'STORNIERT', label: 'Storniert' },
   ];
   
-  // Filter orders
-  const filteredOrders = orders.filter(order => {
-    let match = true;
-    
-    if (filterDate) {
-      const orderDate = new Date(order.abholDatum);
-      const filterDateObj = new Date(filterDate);
-      
-      match = match && 
-        orderDate.getFullYear() === filterDateObj.getFullYear() &&
-        orderDate.getMonth() === filterDateObj.getMonth() &&
-        orderDate.getDate() === filterDateObj.getDate();
-    }
-    
-    if (filterStatus) {
-      match = match && order.status === filterStatus;
-    }
-    
-    return match;
-  });
+  const zahlungsStatusOptions = [
+    { value: 'AUSSTEHEND', label: 'Ausstehend' },
+    { value: 'BEZAHLT', label: 'Bezahlt' },
+    { value: 'STORNIERT', label: 'Storniert' },
+  ];
   
   return (
     <>
@@ -110,6 +127,15 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
         </Typography>
         
         <Box>
+          {selectedIds.length > 0 && (
+            <Button 
+              variant="contained"
+              onClick={(e) => setStatusAnchorEl(e.currentTarget)}
+              sx={{ mr: 1 }}
+            >
+              Status für {selectedIds.length} ändern
+            </Button>
+          )}
           <Button 
             startIcon={<FilterListIcon />} 
             onClick={toggleFilters}
@@ -134,11 +160,11 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
           </Typography>
           
           <Grid container spacing={2} alignItems="center">
-            <Grid item xs={12} sm={4}>
+            <Grid item xs={12} sm={3}>
               <LocalizationProvider dateAdapter={AdapterDateFns} adapterLocale={deLocale}>
                 <DatePicker
                   label="Abholdatum"
-                  value={filterDate}
+                  value={filter.datum}
                   onChange={handleFilterDateChange}
                   sx={{ width: '100%' }}
                   slotProps={{
@@ -152,12 +178,12 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
               </LocalizationProvider>
             </Grid>
             
-            <Grid item xs={12} sm={4}>
+            <Grid item xs={12} sm={3}>
               <TextField
                 select
                 fullWidth
                 label="Status"
-                value={filterStatus}
+                value={filter.status}
                 onChange={handleFilterStatusChange}
                 variant="outlined"
                 size="small"
@@ -171,7 +197,26 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
               </TextField>
             </Grid>
             
-            <Grid item xs={12} sm={4}>
+            <Grid item xs={12} sm={3}>
+              <TextField
+                select
+                fullWidth
+                label="Zahlungsstatus"
+                value={filter.zahlungsStatus}
+                onChange={handleFilterZahlungsStatusChange}
+                variant="outlined"
+                size="small"
+              >
+                <MenuItem value="">Alle Zahlungsstatus</MenuItem>
+                {zahlungsStatusOptions.map((option) => (
+                  <MenuItem key={option.value} value={option.value}>
+                    {option.label}
+                  </MenuItem>
+                ))}
+              </TextField>
+            </Grid>
+            
+            <Grid item xs={12} sm={3}>
               <Button variant="outlined" onClick={clearFilters} fullWidth>
                 Filter zurücksetzen
               </Button>
@@ -184,6 +229,14 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
         <Table sx={{ minWidth: 650 }}>
           <TableHead>
             <TableRow>
+              <TableCell padding="checkbox">
+                <Checkbox
+                  indeterminate={selectedIds.length > 0 && selectedIds.length < orders.length}
+                  checked={orders.length > 0 && selectedIds.length === orders.length}
+                  onChange={toggleAllSelected}
+                  inputProps={{ 'aria-label': 'Alle Bestellungen auswählen' }}
+                />
+              </TableCell>
               <TableCell>Bestell-Nr.</TableCell>
               <TableCell>Kunde</TableCell>
               <TableCell>Abholdatum</TableCell>
@@ -196,9 +249,16 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
             </TableRow>
           </TableHead>
           <TableBody>
-            {filteredOrders.length > 0 ? (
-              filteredOrders.map((order) => (
-                <TableRow key={order.id}>
+            {orders.length > 0 ? (
+              orders.map((order) => (
+                <TableRow key={order.id} selected={selectedIds.includes(order.id)}>
+                  <TableCell padding="checkbox">
+                    <Checkbox
+                      checked={selectedIds.includes(order.id)}
+                      onChange={() => toggleSelected(order.id)}
+                      inputProps={{ 'aria-label': `Bestellung ${order.id} auswählen` }}
+                    />
+                  </TableCell>
                   <TableCell>{order.id}</TableCell>
                   <TableCell>{order.userName}</TableCell>
                   <TableCell>{formatDate(order.abholDatum)}</TableCell>
@@ -231,7 +291,7 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
               ))
             ) : (
               <TableRow>
-                <TableCell colSpan={9} align="center">
+                <TableCell colSpan={10} align="center">
                   <Typography variant="body1" sx={{ py: 2 }}>
                     Keine Bestellungen gefunden
                   </Typography>
@@ -242,6 +302,14 @@ const OrderManagement = ({ orders, onUpdateStatus, onRefresh }) => {
         </Table>
       </TableContainer>
       
+      {hasMore && (
+        <Box sx={{ display: 'flex', justifyContent: 'center', mt: 2 }}>
+          <Button variant="outlined" onClick={onLoadMore} disabled={loadingMore}>
+            {loadingMore ? 'Wird geladen...' : 'Weitere Bestellungen laden'}
+          </Button>
+        </Box>
+      )}
+      
       <Menu
         anchorEl={statusAnchorEl}
         open={Boolean(statusAnchorEl)}
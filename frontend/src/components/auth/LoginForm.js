@@ -32,7 +32,7 @@ const LoginForm = () => {
   const dispatch = useDispatch();
   const navigate = useNavigate();
   const location = useLocation();
-  const { loading, error, mfaRequired, mfaEmail, mfaPassword } = useSelector(state => state.auth);
+  const { loading, error, mfaRequired, mfaEmail, mfaChallengeToken } = useSelector(state => state.auth);
   const [showPassword, setShowPassword] = useState(false);
 
   const from = location.state?.from || '/';
@@ -65,7 +65,7 @@ const LoginForm = () => {
   if (mfaRequired) {
     return <MfaVerificationForm
       email={mfaEmail}
-      password={mfaPassword}
+      challengeToken={mfaChallengeToken}
       onSuccess={handleMfaSuccess}
     />;
   }
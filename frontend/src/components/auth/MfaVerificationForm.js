@@ -20,13 +20,13 @@ const MfaVerificationSchema = Yup.object().shape({
         .required('Code ist erforderlich'),
 });
 
-const MfaVerificationForm = ({ email, password, onSuccess }) => {
+const MfaVerificationForm = ({ challengeToken, onSuccess }) => {
     const dispatch = useDispatch();
     const { loading, error } = useSelector(state => state.auth);
 
     const handleSubmit = async (values) => {
         try {
-            const result = await dispatch(verifyMfa(email, password, values.code));
+            const result = await dispatch(verifyMfa(challengeToken, values.code));
             if (result?.type === 'auth/loginSuccess' && onSuccess) {
                 onSuccess();
             }
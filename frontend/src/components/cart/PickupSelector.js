@@ -23,6 +23,7 @@ import {
 } from '../../store/cart/cartSlice';
 import { useCartValidation } from '../../hooks/useCartValidation';
 import CartValidationDisplay from './CartValidationDisplay';
+import { abholSlotService } from '../../services/api';
 
 const PickupSelector = () => {
   const dispatch = useDispatch();
@@ -33,6 +34,7 @@ const PickupSelector = () => {
   const validationErrors = useSelector(selectValidationErrors);
   
   const [minTime, setMinTime] = useState(null);
+  const [abholSlots, setAbholSlots] = useState([]);
   const { validateCart, isValid, hasConflictingDates } = useCartValidation();
   
   // Set default date to original menu date or today if not selected
@@ -49,6 +51,24 @@ const PickupSelector = () => {
     }
   }, [selectedDate, originalMenuDate]);
   
+  // Freie Plätze pro Abholzeitfenster für das gewählte Datum laden
+  useEffect(() => {
+    if (!selectedDate) return;
+    let aktiv = true;
+    abholSlotService.getAbholSlots(selectedDate)
+      .then(response => { if (aktiv) setAbholSlots(response.data); })
+      .catch(() => { if (aktiv) setAbholSlots([]); });
+    return () => { aktiv = false; };
+  }, [selectedDate]);
+
+  const getTimeHelperText = () => {
+    const slot = selectedTime && abholSlots.find(s =>
+      s.beginn.slice(0, 5) <= selectedTime && selectedTime < s.ende.slice(0, 5));
+    if (!slot) return 'Verfügbar zwischen 10:00 und 14:30 Uhr';
+    if (slot.verfuegbar === 0) return 'Dieses Zeitfenster ist ausgebucht';
+    return `Noch ${slot.verfuegbar} Plätze zwischen ${slot.beginn.slice(0, 5)} und ${slot.ende.slice(0, 5)} Uhr`;
+  };
+
   const handleDateChange = (date) => {
     const formattedDate = format(date, 'yyyy-MM-dd');
     dispatch(setAbholDatum(formattedDate));
@@ -145,7 +165,7 @@ const PickupSelector = () => {
                   variant: 'outlined',
                   fullWidth: true,
                   required: true,
-                  helperText: 'Verfügbar zwischen 10:00 und 14:30 Uhr',
+                  helperText: getTimeHelperText(),
                 },
               }}
             />
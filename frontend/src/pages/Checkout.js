@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useDispatch, useSelector } from 'react-redux';
 import { useNavigate } from 'react-router-dom';
 import {
@@ -27,6 +27,7 @@ import CartSummary from '../components/cart/CartSummary';
 import PickupSelector from '../components/cart/PickupSelector';
 import EmptyState from '../components/common/EmptyState';
 import { bestellungService } from '../services/api';
+import { createIdempotencyKey } from '../utils/idempotency';
 import {
   clearCart,
   selectCartItems,
@@ -48,6 +49,7 @@ const Checkout = () => {
 
   const [activeStep, setActiveStep] = useState(0);
   const [loading, setLoading] = useState(false);
+  const idempotencyKeyRef = useRef(null);
 
   // Calculate total items for easier checks
   const totalItems = cartItems.length + cartDrinks.length;
@@ -115,12 +117,22 @@ const Checkout = () => {
       ]
     };
 
+    // Derselbe Key bei Wiederholungen nach Netzwerkfehlern verhindert doppelte Bestellungen
+    if (!idempotencyKeyRef.current) {
+      idempotencyKeyRef.current = createIdempotencyKey();
+    }
+
     try {
-      const response = await bestellungService.createBestellung(orderData);
+      const response = await bestellungService.createBestellung(orderData, idempotencyKeyRef.current);
+      idempotencyKeyRef.current = null;
       dispatch(clearCart());
       navigate(`/payment/${response.data.id}`);
       toast.success('Bestellung erfolgreich erstellt!');
     } catch (error) {
+      // Nur bei einer Antwort des Servers ist die Anfrage abgeschlossen; sonst den Key behalten
+      if (error.response) {
+        idempotencyKeyRef.current = null;
+      }
       const message = error.response?.data?.message || 'Ein Fehler ist aufgetreten';
       toast.error(message);
       console.error('Order creation error:', error);
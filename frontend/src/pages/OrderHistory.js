@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useCallback } from 'react';
 import { useNavigate } from 'react-router-dom';
 import {
   Box,
@@ -19,6 +19,7 @@ import Loading from '../components/common/Loading';
 import ErrorMessage from '../components/common/ErrorMessage';
 import EmptyState from '../components/common/EmptyState';
 import { bestellungService } from '../services/api';
+import { subscribeOrderEvents } from '../services/orderEvents';
 
 const OrderHistory = () => {
   const navigate = useNavigate();
@@ -27,22 +28,32 @@ const OrderHistory = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   
+  const fetchOrders = useCallback(async () => {
+    try {
+      const response = await bestellungService.getMyBestellungen();
+      setOrders(response.data);
+    } catch (error) {
+      const message = error.response?.data?.message || 'Bestellungen konnten nicht geladen werden';
+      setError(message);
+      toast.error(message);
+    } finally {
+      setLoading(false);
+    }
+  }, []);
+  
   useEffect(() => {
-    const fetchOrders = async () => {
-      try {
-        const response = await bestellungService.getMyBestellungen();
-        setOrders(response.data);
-      } catch (error) {
-        const message = error.response?.data?.message || 'Bestellungen konnten nicht geladen werden';
-        setError(message);
-        toast.error(message);
-      } finally {
-        setLoading(false);
-      }
-    };
-    
     fetchOrders();
-  }, []);
+  }, [fetchOrders]);
+  
+  // Statusänderungen der eigenen Bestellungen live übernehmen
+  useEffect(() => subscribeOrderEvents('/bestellungen/stream', {
+    onEvent: (typ, bestellung) => {
+      setOrders(current => (current.some(order => order.id === bestellung.id)
+        ? current.map(order => (order.id === bestellung.id ? bestellung : order))
+        : [bestellung, ...current]));
+    },
+    onReset: fetchOrders,
+  }), [fetchOrders]);
   
   if (loading) {
     return <Loading message="Bestellungen werden geladen..." />;
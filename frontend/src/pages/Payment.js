@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import {
   Box,
@@ -19,6 +19,7 @@ import OrderDetail from '../components/orders/OrderDetail';
 import Loading from '../components/common/Loading';
 import ErrorMessage from '../components/common/ErrorMessage';
 import { bestellungService, zahlungService } from '../services/api';
+import { createIdempotencyKey } from '../utils/idempotency';
 
 const Payment = () => {
   const { orderId } = useParams();
@@ -28,6 +29,7 @@ const Payment = () => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [processingPayment, setProcessingPayment] = useState(false);
+  const idempotencyKeyRef = useRef(null);
   
   useEffect(() => {
     const fetchOrder = async () => {
@@ -53,8 +55,14 @@ const Payment = () => {
   
   const handlePaymentSubmit = async (paymentData) => {
     setProcessingPayment(true);
+    // Derselbe Key bei Wiederholungen nach Netzwerkfehlern verhindert doppelte Zahlungen
+    if (!idempotencyKeyRef.current) {
+      idempotencyKeyRef.current = createIdempotencyKey();
+    }
     try {
-      const response = await zahlungService.processZahlung(orderId, paymentData);
+      const response = await zahlungService.processZahlung(orderId, paymentData, idempotencyKeyRef.current);
+      // Die Zahlung ist abgeschlossen; ein neuer Versuch braucht einen neuen Key
+      idempotencyKeyRef.current = null;
       
       // Check if payment was successful
       if (response.data.erfolgreich) {
@@ -67,6 +75,9 @@ const Payment = () => {
         setProcessingPayment(false);
       }
     } catch (error) {
+      if (error.response) {
+        idempotencyKeyRef.current = null;
+      }
       const message = error.response?.data?.message || 'Zahlung konnte nicht verarbeitet werden';
       toast.error(message);
       setProcessingPayment(false);
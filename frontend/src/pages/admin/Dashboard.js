@@ -46,22 +46,15 @@ const Dashboard = () => {
           .filter(order => order.zahlungsStatus === 'BEZAHLT')
           .reduce((total, order) => total + order.gesamtPreis, 0);
         
-        // Beliebte Gerichte ermitteln
-        const dishOrderCounts = {};
-        orders.forEach(order => {
-          order.positionen.forEach(position => {
-            if (!dishOrderCounts[position.gerichtId]) {
-              dishOrderCounts[position.gerichtId] = {
-                id: position.gerichtId,
-                name: position.gerichtName,
-                orderCount: 0
-              };
-            }
-            dishOrderCounts[position.gerichtId].orderCount += position.anzahl;
-          });
-        });
-        
-        const popularDishes = Object.values(dishOrderCounts)
+        // Beliebte Gerichte aus den serverseitig geführten Produktionsmengen
+        const produktionResponse = await bestellungService.getProduktionsMengen(today);
+        const popularDishes = produktionResponse.data
+          .filter(menge => menge.gesamt > 0)
+          .map(menge => ({
+            id: menge.gerichtId,
+            name: menge.gerichtName,
+            orderCount: menge.gesamt
+          }))
           .sort((a, b) => b.orderCount - a.orderCount)
           .slice(0, 5);
         
@@ -1,25 +1,49 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useCallback } from 'react';
 import {
   Box,
   Typography,
 } from '@mui/material';
 import { toast } from 'react-toastify';
+import { format } from 'date-fns';
 
 import OrderManagement from '../../components/admin/OrderManagement';
 import Loading from '../../components/common/Loading';
 import ErrorMessage from '../../components/common/ErrorMessage';
 import { bestellungService } from '../../services/api';
+import { subscribeOrderEvents } from '../../services/orderEvents';
+
+const PAGE_SIZE = 50;
+
+// Filter der Oberfläche in Query-Parameter der API übersetzen
+const toParams = (filter, cursor) => {
+  const params = { groesse: PAGE_SIZE };
+  if (filter.datum) {
+    const datum = format(filter.datum, 'yyyy-MM-dd');
+    params.von = datum;
+    params.bis = datum;
+  }
+  if (filter.status) params.status = filter.status;
+  if (filter.zahlungsStatus) params.zahlungsStatus = filter.zahlungsStatus;
+  if (cursor) params.cursor = cursor;
+  return params;
+};
 
 const Orders = () => {
   const [orders, setOrders] = useState([]);
+  const [filter, setFilter] = useState({ datum: null, status: '', zahlungsStatus: '' });
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loaded, setLoaded] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState(null);
   
-  const fetchOrders = async () => {
+  const fetchOrders = useCallback(async () => {
     setLoading(true);
     try {
-      const response = await bestellungService.getAllBestellungen();
-      setOrders(response.data);
+      const response = await bestellungService.getAllBestellungen(toParams(filter));
+      setOrders(response.data.bestellungen);
+      setNextCursor(response.data.naechsterCursor);
+      setLoaded(true);
       setError(null);
     } catch (error) {
       const message = error.response?.data?.message || 'Fehler beim Laden der Bestellungen';
@@ -28,26 +52,86 @@ const Orders = () => {
     } finally {
       setLoading(false);
     }
-  };
+  }, [filter]);
   
   useEffect(() => {
     fetchOrders();
-  }, []);
+  }, [fetchOrders]);
+  
+  // Neue Bestellungen und Statusänderungen live übernehmen; der Stream ist nach Abholdatum gefiltert
+  useEffect(() => {
+    const path = filter.datum
+      ? `/bestellungen/stream/alle?datum=${format(filter.datum, 'yyyy-MM-dd')}`
+      : '/bestellungen/stream/alle';
+    const matchesFilter = (bestellung) =>
+      (!filter.status || bestellung.status === filter.status) &&
+      (!filter.zahlungsStatus || bestellung.zahlungsStatus === filter.zahlungsStatus);
+
+    return subscribeOrderEvents(path, {
+      onEvent: (typ, bestellung) => {
+        setOrders(current => {
+          if (current.some(order => order.id === bestellung.id)) {
+            return current.map(order => (order.id === bestellung.id ? bestellung : order));
+          }
+          return typ === 'ERSTELLT' && matchesFilter(bestellung) ? [bestellung, ...current] : current;
+        });
+      },
+      onReset: fetchOrders,
+    });
+  }, [filter, fetchOrders]);
+  
+  const handleLoadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const response = await bestellungService.getAllBestellungen(toParams(filter, nextCursor));
+      setOrders(current => [...current, ...response.data.bestellungen]);
+      setNextCursor(response.data.naechsterCursor);
+    } catch (error) {
+      const message = error.response?.data?.message || 'Fehler beim Laden der Bestellungen';
+      toast.error(message);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
   
   const handleUpdateStatus = async (orderId, status) => {
     try {
-      await bestellungService.updateBestellungStatus(orderId, status);
+      const response = await bestellungService.updateBestellungStatus(orderId, status);
       toast.success('Status erfolgreich aktualisiert');
       
-      // Bestellungen neu laden
-      fetchOrders();
+      // Nur die geänderte Bestellung ersetzen, statt alle Seiten neu zu laden
+      setOrders(current => current.map(order => (order.id === orderId ? response.data : order)));
+    } catch (error) {
+      const message = error.response?.data?.message || 'Fehler beim Aktualisieren des Status';
+      toast.error(message);
+    }
+  };
+  
+  const handleUpdateStatusBulk = async (orderIds, status) => {
+    try {
+      const response = await bestellungService.updateBestellungStatusBulk({ ids: orderIds, zielStatus: status });
+      const { aktualisiert, ergebnisse } = response.data;
+      const abgelehnt = ergebnisse.length - aktualisiert;
+      if (abgelehnt > 0) {
+        toast.warning(`${aktualisiert} Bestellung(en) aktualisiert, ${abgelehnt} übersprungen`);
+      } else {
+        toast.success(`${aktualisiert} Bestellung(en) aktualisiert`);
+      }
+      
+      const neuerStatus = new Map(
+        ergebnisse.filter(ergebnis => ergebnis.ausgang === 'AKTUALISIERT').map(ergebnis => [ergebnis.id, ergebnis.status])
+      );
+      setOrders(current => current.map(order => (
+        neuerStatus.has(order.id) ? { ...order, status: neuerStatus.get(order.id) } : order
+      )));
     } catch (error) {
       const message = error.response?.data?.message || 'Fehler beim Aktualisieren des Status';
       toast.error(message);
     }
   };
   
-  if (loading) {
+  // Nur beim ersten Laden die ganze Seite ersetzen, damit die Filter beim Umschalten sichtbar bleiben
+  if (loading && !loaded) {
     return <Loading message="Bestellungen werden geladen..." />;
   }
   
@@ -59,7 +143,13 @@ const Orders = () => {
     <Box>
       <OrderManagement 
         orders={orders} 
+        filter={filter}
+        onFilterChange={setFilter}
+        hasMore={Boolean(nextCursor)}
+        loadingMore={loadingMore}
+        onLoadMore={handleLoadMore}
         onUpdateStatus={handleUpdateStatus} 
+        onUpdateStatusBulk={handleUpdateStatusBulk}
         onRefresh={fetchOrders}
       />
     </Box>
@@ -1,8 +1,9 @@
 import axios from 'axios';
 import { store } from '../store';
-import { logout } from '../store/auth/authSlice';
+import { logout, tokenRefreshed } from '../store/auth/authSlice';
+import { withIdempotencyKey } from '../utils/idempotency';
 
-const API_URL = 'http://localhost:8080/api';
+export const API_URL = 'http://localhost:8080/api';
 
 const api = axios.create({
   baseURL: API_URL,
@@ -23,14 +24,49 @@ api.interceptors.request.use(
   (error) => Promise.reject(error)
 );
 
+// Laufende Token-Erneuerung, damit parallele Anfragen nur einen Refresh auslösen
+let refreshPromise = null;
+
+export const refreshAccessToken = () => {
+  if (!refreshPromise) {
+    const { refreshToken } = store.getState().auth;
+    refreshPromise = axios
+      .post(`${API_URL}/auth/refresh`, { refreshToken })
+      .then((response) => {
+        store.dispatch(tokenRefreshed(response.data));
+        return response.data.token;
+      })
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
 // Interceptor für Antworten
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
-    const { response } = error;
+  async (error) => {
+    const { response, config } = error;
 
-    // Bei 401 Unauthorized automatisch abmelden
     if (response && response.status === 401) {
+      const { refreshToken } = store.getState().auth;
+      const isAuthRequest = config?.url?.startsWith('/auth/');
+
+      // Abgelaufenes Access-Token einmalig über das Refresh-Token erneuern
+      if (refreshToken && config && !config._retry && !isAuthRequest) {
+        config._retry = true;
+        try {
+          const token = await refreshAccessToken();
+          config.headers.Authorization = `Bearer ${token}`;
+          return api(config);
+        } catch (refreshError) {
+          store.dispatch(logout());
+          return Promise.reject(refreshError);
+        }
+      }
+
+      // Bei 401 Unauthorized automatisch abmelden
       store.dispatch(logout());
     }
 
@@ -42,7 +78,8 @@ api.interceptors.response.use(
 export const authService = {
   login: (email, password) => api.post('/auth/signin', { email, password }),
   register: (userData) => api.post('/auth/signup', userData),
-  verifyMfa: (email, password, code) => api.post('/auth/mfa-verify', { email, password, code }),
+  verifyMfa: (challengeToken, code) => api.post('/auth/mfa-verify', { challengeToken, code }),
+  logout: (refreshToken) => api.post('/auth/logout', { refreshToken }),
 
   // CORRECTED: Send object with email property
   setupMfa: (email) => api.post('/auth/mfa-setup', { email }),
@@ -103,11 +140,15 @@ export const gerichtService = {
 export const bestellungService = {
   getMyBestellungen: () => api.get('/bestellungen/meine'),
   getBestellungById: (id) => api.get(`/bestellungen/${id}`),
-  createBestellung: (bestellungData) => api.post('/bestellungen', bestellungData),
+  createBestellung: (bestellungData, idempotencyKey) =>
+    api.post('/bestellungen', bestellungData, withIdempotencyKey(idempotencyKey)),
   storniereBestellung: (id) => api.put(`/bestellungen/${id}/stornieren`),
-  getAllBestellungen: () => api.get('/bestellungen/alle'),
+  getAllBestellungen: (params) => api.get('/bestellungen/alle', { params }),
   getBestellungenByDatum: (date) => api.get(`/bestellungen/datum/${date}`),
+  getProduktionsMengen: (date) => api.get(`/bestellungen/produktion/${date}`),
+  berechneProduktionsMengenNeu: (date) => api.post(`/bestellungen/produktion/${date}/neu-berechnen`),
   updateBestellungStatus: (id, status) => api.put(`/bestellungen/${id}/status`, null, { params: { status } }),
+  updateBestellungStatusBulk: (request) => api.put('/bestellungen/status', request),
 };
 
 // Getränk Services
@@ -121,9 +162,17 @@ export const getraenkService = {
   deleteGetraenk: (id) => api.delete(`/getraenke/${id}`),
 };
 
+// Abholzeitfenster Services
+export const abholSlotService = {
+  getAbholSlots: (datum) => api.get(`/abholslots/${datum}`),
+  setzeKapazitaet: (datum, slotBeginn, kapazitaet) =>
+    api.put(`/abholslots/${datum}/kapazitaet`, { slotBeginn, kapazitaet }),
+};
+
 // Zahlung Services
 export const zahlungService = {
-  processZahlung: (bestellungId, zahlungData) => api.post(`/zahlungen/${bestellungId}`, zahlungData),
+  processZahlung: (bestellungId, zahlungData, idempotencyKey) =>
+    api.post(`/zahlungen/${bestellungId}`, zahlungData, withIdempotencyKey(idempotencyKey)),
   getZahlungStatus: (bestellungId) => api.get(`/zahlungen/${bestellungId}`),
 };
 
@@ -0,0 +1,93 @@
+import { store } from '../store';
+import { API_URL, refreshAccessToken } from './api';
+
+const RECONNECT_DELAY_MS = 3000;
+
+/**
+ * Abonniert Live-Ereignisse zu Bestellungen (Server-Sent Events).
+ * EventSource kann keinen Authorization-Header senden, daher wird der Stream per fetch gelesen.
+ * Nach einem Verbindungsabbruch wird mit Last-Event-ID neu verbunden, damit keine Ereignisse verloren gehen.
+ * @param {string} path - Pfad des Streams, z.B. '/bestellungen/stream'
+ * @param {Object} handlers - onEvent(typ, bestellung) für Ereignisse, onReset() wenn neu geladen werden muss
+ * @returns {Function} Beendet das Abonnement
+ */
+export const subscribeOrderEvents = (path, { onEvent, onReset }) => {
+  let lastEventId = null;
+  let controller = null;
+  let stopped = false;
+  let reconnectTimer = null;
+
+  const dispatch = (event) => {
+    if (event.id) lastEventId = event.id;
+    if (event.type === 'RESET') {
+      onReset?.();
+    } else if (event.type && event.data) {
+      onEvent(event.type, JSON.parse(event.data));
+    }
+  };
+
+  // Zerlegt den Text-Stream in Ereignisse (durch Leerzeile getrennt)
+  const readStream = async (body) => {
+    const reader = body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = '';
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) return;
+      buffer += value.replace(/\r\n?/g, '\n');
+
+      let boundary;
+      while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+        const block = buffer.slice(0, boundary);
+        buffer = buffer.slice(boundary + 2);
+
+        const event = { id: null, type: null, data: '' };
+        block.split('\n').forEach((line) => {
+          if (line.startsWith(':')) return;
+          const separator = line.indexOf(':');
+          const field = separator >= 0 ? line.slice(0, separator) : line;
+          const fieldValue = separator >= 0 ? line.slice(separator + 1).replace(/^ /, '') : '';
+          if (field === 'id') event.id = fieldValue;
+          else if (field === 'event') event.type = fieldValue;
+          else if (field === 'data') event.data += event.data ? `\n${fieldValue}` : fieldValue;
+        });
+        dispatch(event);
+      }
+    }
+  };
+
+  const connect = async () => {
+    if (stopped) return;
+    controller = new AbortController();
+    try {
+      const headers = { Accept: 'text/event-stream' };
+      const { token } = store.getState().auth;
+      if (token) headers.Authorization = `Bearer ${token}`;
+      if (lastEventId) headers['Last-Event-ID'] = lastEventId;
+
+      const response = await fetch(`${API_URL}${path}`, { headers, signal: controller.signal });
+      if (response.status === 401) {
+        // Ohne Refresh-Token ist der Benutzer abgemeldet; sonst Access-Token erneuern und neu verbinden
+        if (!store.getState().auth.refreshToken) return;
+        await refreshAccessToken();
+        connect();
+        return;
+      }
+      if (!response.ok) throw new Error(`Stream-Fehler: ${response.status}`);
+
+      await readStream(response.body);
+    } catch (error) {
+      if (stopped || error.name === 'AbortError') return;
+    }
+    if (!stopped) {
+      reconnectTimer = setTimeout(connect, RECONNECT_DELAY_MS);
+    }
+  };
+
+  connect();
+
+  return () => {
+    stopped = true;
+    clearTimeout(reconnectTimer);
+    controller?.abort();
+  };
+};
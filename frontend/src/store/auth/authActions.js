@@ -19,7 +19,7 @@ export const login = (email, password) => async (dispatch) => {
   try {
     const response = await authService.login(email, password);
     if (response.data.mfaRequired) {
-      dispatch(requireMfa({ email, password }));
+      dispatch(requireMfa({ email, challengeToken: response.data.challengeToken }));
     } else {
       dispatch(loginSuccess(response.data));
       toast.success('Erfolgreich angemeldet!');
@@ -42,10 +42,10 @@ export const login = (email, password) => async (dispatch) => {
 };
 
 // Verify MFA Code Action
-export const verifyMfa = (email, password, code) => async (dispatch) => {
+export const verifyMfa = (challengeToken, code) => async (dispatch) => {
   dispatch(loginStart());
   try {
-    const response = await authService.verifyMfa(email, password, code);
+    const response = await authService.verifyMfa(challengeToken, code);
     dispatch(loginSuccess(response.data));
     toast.success('Erfolgreich angemeldet!');
   } catch (error) {
@@ -80,20 +80,24 @@ export const register = (userData) => async (dispatch) => {
 };
 
 // Logout Action
-export const logoutUser = () => (dispatch) => {
+export const logoutUser = () => (dispatch, getState) => {
+  const { refreshToken } = getState().auth;
+  // Access- und Refresh-Token serverseitig sperren; lokal wird in jedem Fall abgemeldet
+  authService.logout(refreshToken).catch(() => {});
   dispatch(logout());
   toast.info('Sie wurden abgemeldet');
 };
 
 // Check Token Expiration
 export const checkTokenExpiration = () => (dispatch, getState) => {
-  const { token } = getState().auth;
+  const { token, refreshToken } = getState().auth;
   if (token) {
     try {
       const decodedToken = jwtDecode(token);
       const currentTime = Date.now() / 1000;
 
-      if (decodedToken.exp < currentTime) {
+      // Mit Refresh-Token wird das Access-Token bei der nächsten Anfrage erneuert
+      if (decodedToken.exp < currentTime && !refreshToken) {
         dispatch(logout());
         toast.info('Ihre Sitzung ist abgelaufen. Bitte melden Sie sich erneut an.');
       }
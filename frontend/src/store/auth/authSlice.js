@@ -4,11 +4,12 @@ const initialState = {
   isLoggedIn: false,
   user: null,
   token: null,
+  refreshToken: null,
   error: null,
   loading: false,
   mfaRequired: false,
   mfaEmail: null,
-  mfaPassword: null,
+  mfaChallengeToken: null,
 };
 
 export const authSlice = createSlice({
@@ -29,16 +30,18 @@ export const authSlice = createSlice({
         roles: action.payload.roles,
       };
       state.token = action.payload.token;
+      state.refreshToken = action.payload.refreshToken;
       state.loading = false;
       state.error = null;
       state.mfaRequired = false;
       state.mfaEmail = null;
-      state.mfaPassword = null;
+      state.mfaChallengeToken = null;
     },
     loginError: (state, action) => {
       state.isLoggedIn = false;
       state.user = null;
       state.token = null;
+      state.refreshToken = null;
       state.loading = false;
       state.error = action.payload;
       state.mfaRequired = false;
@@ -47,11 +50,16 @@ export const authSlice = createSlice({
       state.isLoggedIn = false;
       state.user = null;
       state.token = null;
+      state.refreshToken = null;
       state.error = null;
       state.loading = false;
       state.mfaRequired = false;
       state.mfaEmail = null;
-      state.mfaPassword = null;
+      state.mfaChallengeToken = null;
+    },
+    tokenRefreshed: (state, action) => {
+      state.token = action.payload.token;
+      state.refreshToken = action.payload.refreshToken;
     },
     registerStart: (state) => {
       state.loading = true;
@@ -71,7 +79,7 @@ export const authSlice = createSlice({
     requireMfa: (state, action) => {
       state.mfaRequired = true;
       state.mfaEmail = action.payload.email;
-      state.mfaPassword = action.payload.password;
+      state.mfaChallengeToken = action.payload.challengeToken;
       state.loading = false;
     },
     updateUser: (state, action) => {
@@ -88,6 +96,7 @@ export const {
   loginSuccess,
   loginError,
   logout,
+  tokenRefreshed,
   registerStart,
   registerSuccess,
   registerError,
@@ -0,0 +1,19 @@
+/**
+ * Erzeugt einen neuen Idempotency-Key für schreibende Anfragen
+ * @returns {string} Ein zufälliger, eindeutiger Schlüssel
+ */
+export const createIdempotencyKey = () => {
+  if (window.crypto?.randomUUID) {
+    return window.crypto.randomUUID();
+  }
+  // Fallback für Browser ohne crypto.randomUUID
+  return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}-${Math.random().toString(36).slice(2)}`;
+};
+
+/**
+ * Baut die Request-Konfiguration mit Idempotency-Key-Header
+ * @param {string} [idempotencyKey] - Der Schlüssel der Anfrage
+ * @returns {Object|undefined} Die Axios-Konfiguration
+ */
+export const withIdempotencyKey = (idempotencyKey) =>
+  idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined;